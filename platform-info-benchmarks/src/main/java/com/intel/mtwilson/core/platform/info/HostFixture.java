@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Builds the hosts measured by the benchmarks from the fixtures of the
+ * lib-platform-info unit tests, scaled up to the given number of logical
+ * CPUs and sockets: /proc/cpuinfo and the sysfs CPU topology get one entry
+ * per CPU, and dmidecode lists one processor structure per socket.
+ */
+final class HostFixture {
+
+    /*
+        files of the unit test host root that are copied as they are
+     */
+    private static final String[] HOST_FILES = {
+        "etc/os-release",
+        "proc/sys/kernel/random/boot_id",
+        "dev/tpm0",
+        "dev/cpu/0/msr",
+        "dev/cpu/0/cpuid",
+        "sys/class/tpm/tpm0/device/description",
+        "sys/class/dmi/id/product_uuid",
+        "sys/class/dmi/id/bios_vendor",
+        "sys/class/dmi/id/bios_version",
+        "sys/firmware/dmi/tables/DMI",
+        "sys/firmware/dmi/tables/smbios_entry_point"
+    };
+
+    private HostFixture() {
+    }
+
+    static String resource(String name) {
+        return new String(resourceBytes(name), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] resourceBytes(String name) {
+        try (InputStream in = HostFixture.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + name + ", is the lib-platform-info test-jar on the classpath?");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a host root with the given topology into an empty directory.
+     */
+    static void createLinuxHostRoot(Path root, int cpus, int sockets) throws IOException {
+        for (String file : HOST_FILES) {
+            write(root.resolve(file), resourceBytes("/linux/host/" + file));
+        }
+        write(root.resolve("proc/cpuinfo"), cpuInfo(cpus, sockets).getBytes(StandardCharsets.ISO_8859_1));
+        for (int cpu = 0; cpu < cpus; cpu++) {
+            write(root.resolve("sys/devices/system/cpu/cpu" + cpu + "/topology/physical_package_id"),
+                    (socketOf(cpu, cpus, sockets) + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static void write(Path file, byte[] content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    static void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static int socketOf(int cpu, int cpus, int sockets) {
+        return cpu / Math.max(1, cpus / sockets);
+    }
+
+    /**
+     * @return a /proc/cpuinfo with one copy of the first fixture block per CPU
+     */
+    static String cpuInfo(int cpus, int sockets) {
+        String fixture = resource("/linux/host/proc/cpuinfo");
+        int end = fixture.indexOf("\n\n");
+        String[] lines = fixture.substring(0, end < 0 ? fixture.length() : end).split("\n");
+        StringBuilder cpuInfo = new StringBuilder(cpus * (fixture.length() + 16));
+        for (int cpu = 0; cpu < cpus; cpu++) {
+            for (String line : lines) {
+                if (line.startsWith("processor")) {
+                    cpuInfo.append("processor\t: ").append(cpu);
+                } else if (line.startsWith("physical id")) {
+                    cpuInfo.append("physical id\t: ").append(socketOf(cpu, cpus, sockets));
+                } else {
+                    cpuInfo.append(line);
+                }
+                cpuInfo.append('\n');
+            }
+            cpuInfo.append('\n');
+        }
+        return cpuInfo.toString();
+    }
+
+    /**
+     * @return the output of "dmidecode --type processor" with one processor structure per socket
+     */
+    static String dmidecodeProcessor(int sockets) {
+        String fixture = resource("/linux/dmidecode.processor");
+        int start = fixture.indexOf("Handle ");
+        String header = fixture.substring(0, start);
+        String structure = fixture.substring(start);
+        StringBuilder output = new StringBuilder(header.length() + sockets * (structure.length() + 1));
+        output.append(header);
+        for (int socket = 0; socket < sockets; socket++) {
+            output.append(structure
+                    .replace("Handle 0x0004", String.format("Handle 0x%04X", 4 + socket * 4))
+                    .replace("Socket Designation: CPU 1", "Socket Designation: CPU " + (socket + 1)));
+            output.append('\n');
+        }
+        return output.toString();
+    }
+
+    /**
+     * @return the output of "lscpu" with the given topology
+     */
+    static String lscpu(int cpus, int sockets) {
+        return resource("/linux/lscpu")
+                .replaceFirst("(?m)^CPU\\(s\\): +72$", "CPU(s):                " + cpus)
+                .replaceFirst("(?m)^Socket\\(s\\): +2$", "Socket(s):             " + sockets);
+    }
+
+    static ReplayCommandLineRunner linuxRunner(int cpus, int sockets) {
+        return new ReplayCommandLineRunner()
+                .replay("lsb_release -a", resource("/linux/lsb_release"))
+                .replay("dmidecode -s bios-vendor", resource("/linux/dmidecode.bios-vendor"))
+                .replay("dmidecode -s bios-version", resource("/linux/dmidecode.bios-version"))
+                .replay("dmidecode -s system-uuid", resource("/linux/dmidecode.system-uuid"))
+                .replay("dmidecode --type processor", dmidecodeProcessor(sockets))
+                .replay("docker -v", resource("/linux/docker.version"))
+                .replay("virsh version", resource("/linux/virsh.version"))
+                .replay("rdmsr 0x3a -f 1:0", resource("/linux/rdmsr"))
+                .replay("lscpu", lscpu(cpus, sockets))
+                .replay("hostname", resource("/linux/host-name"));
+    }
+
+    static ReplayCommandLineRunner windowsRunner(int sockets) {
+        StringBuilder socketDesignations = new StringBuilder("SocketDesignation  \r\n");
+        StringBuilder processorIds = new StringBuilder("ProcessorId       \r\n");
+        String processorId = resource("/windows/processor-info").split("\n")[1].trim();
+        for (int socket = 0; socket < sockets; socket++) {
+            socketDesignations.append("CPU").append(socket).append("               \r\n");
+            processorIds.append(processorId).append("  \r\n");
+        }
+        return new ReplayCommandLineRunner()
+                .replay("wmic os get caption", resource("/windows/os-name"))
+                .replay("wmic os get version", resource("/windows/os-version"))
+                .replay("wmic bios get manufacturer", resource("/windows/bios-name"))
+                .replay("wmic bios get smbiosbiosversion", resource("/windows/bios-version"))
+                .replay("wmic path WIN32_ServerFeature get ID", "ID  \r\n20  \r\n")
+                .replay("wmic datafile where \"name=\'C:\\\\Windows\\\\System32\\\\vmms.exe\'\" get version", resource("/windows/vmm-version"))
+                .replay("wmic cpu get ProcessorId", processorIds.toString())
+                .replay("wmic path Win32_ComputerSystemProduct get uuid", resource("/windows/hardware-uuid"))
+                .replay("wmic /namespace:\\\\root\\CIMV2\\Security\\MicrosoftTpm path Win32_Tpm get /value", resource("/windows/tpm-version"))
+                .replay("wmic computersystem get Name", resource("/windows/host-name"))
+                .replay("wmic cpu get SocketDesignation", socketDesignations.toString());
+    }
+}
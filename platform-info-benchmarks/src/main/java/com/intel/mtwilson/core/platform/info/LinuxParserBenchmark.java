@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsers of {@link HostInfoCommandLinux} one by one. The
+ * file based probes read a generated host root; the command fallbacks run
+ * against an empty host root, so that every probe falls back to its
+ * replayed command output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinuxParserBenchmark {
+
+    @Param({"4", "256"})
+    public int cpus;
+
+    private Path hostRoot;
+    private Path emptyRoot;
+    private HostInfoCommandLinux files;
+    private HostInfoCommandLinux commands;
+    private String flags;
+
+    @Setup
+    public void setUp() throws Exception {
+        int sockets = Math.max(1, cpus / 32);
+        hostRoot = Files.createTempDirectory("platform-info-benchmark");
+        HostFixture.createLinuxHostRoot(hostRoot, cpus, sockets);
+        emptyRoot = Files.createTempDirectory("platform-info-benchmark");
+
+        files = new HostInfoCommandLinux();
+        files.setHostRoot(hostRoot);
+        files.setRunner(HostFixture.linuxRunner(cpus, sockets));
+        commands = new HostInfoCommandLinux();
+        commands.setHostRoot(emptyRoot);
+        commands.setRunner(HostFixture.linuxRunner(cpus, sockets));
+        flags = String.join(" ", files.getProcessorFlags());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        HostFixture.delete(hostRoot);
+        HostFixture.delete(emptyRoot);
+    }
+
+    @Benchmark
+    public String[] processorFlagsProcCpuInfo() throws Exception {
+        return files.getProcessorFlags();
+    }
+
+    @Benchmark
+    public CpuFeatureSet cpuFeatureSetParse() {
+        return CpuFeatureSet.parse(flags);
+    }
+
+    @Benchmark
+    public int numberOfSocketsSysfs() throws Exception {
+        return files.getNumberOfSockets();
+    }
+
+    @Benchmark
+    public String processorInfoSmbios() throws Exception {
+        return files.getProcessorInfo();
+    }
+
+    @Benchmark
+    public String biosNameSysfs() throws Exception {
+        return files.getBiosName();
+    }
+
+    @Benchmark
+    public String hardwareUuidSysfs() throws Exception {
+        return files.getHardwareUUID();
+    }
+
+    @Benchmark
+    public String osNameOsRelease() throws Exception {
+        return files.getOsName();
+    }
+
+    @Benchmark
+    public int numberOfSocketsLscpu() throws Exception {
+        return commands.getNumberOfSockets();
+    }
+
+    @Benchmark
+    public String processorInfoDmidecode() throws Exception {
+        return commands.getProcessorInfo();
+    }
+
+    @Benchmark
+    public String biosNameDmidecode() throws Exception {
+        return commands.getBiosName();
+    }
+
+    @Benchmark
+    public String hardwareUuidDmidecode() throws Exception {
+        return commands.getHardwareUUID();
+    }
+
+    @Benchmark
+    public String osNameLsbRelease() throws Exception {
+        return commands.getOsName();
+    }
+
+    @Benchmark
+    public String vmmVersion() throws Exception {
+        return commands.getVmmVersion();
+    }
+
+    @Benchmark
+    public String hostName() throws Exception {
+        return commands.getHostName();
+    }
+}
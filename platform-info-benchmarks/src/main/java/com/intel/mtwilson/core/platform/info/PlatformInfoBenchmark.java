@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.model.HostInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PlatformInfo#getHostInfo()} end to end on a Linux host
+ * with replayed command outputs: "cold" probes every field as on the first
+ * collection, "cached" is a collection where every field is still fresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlatformInfoBenchmark {
+
+    @Param({"4", "256"})
+    public int cpus;
+
+    private Path hostRoot;
+    private PlatformInfo platformInfo;
+
+    @Setup
+    public void setUp() throws Exception {
+        int sockets = Math.max(1, cpus / 32);
+        hostRoot = Files.createTempDirectory("platform-info-benchmark");
+        HostFixture.createLinuxHostRoot(hostRoot, cpus, sockets);
+        HostInfoCommandLinux hostInfoCommand = new HostInfoCommandLinux();
+        hostInfoCommand.setHostRoot(hostRoot);
+        hostInfoCommand.setRunner(HostFixture.linuxRunner(cpus, sockets));
+        platformInfo = new PlatformInfo(hostInfoCommand);
+        platformInfo.setCachePolicy(CachePolicy.permanent());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        HostFixture.delete(hostRoot);
+    }
+
+    @Benchmark
+    public HostInfo cold() throws Exception {
+        platformInfo.invalidateAll();
+        return platformInfo.getHostInfo();
+    }
+
+    @Benchmark
+    public HostInfo cached() throws Exception {
+        return platformInfo.getHostInfo();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.util.exec.Result;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Answers commands with recorded outputs instead of running them, so that a
+ * benchmark measures the parsing of the output and not the process start.
+ * Commands without a recording fail like a missing executable, with the
+ * IOException that {@link CommandLineRunner} throws when it cannot start one.
+ */
+final class ReplayCommandLineRunner extends CommandLineRunner {
+
+    private final Map<String, byte[]> outputs = new HashMap<>();
+
+    /**
+     * @param commandLine the executable and its arguments joined by single spaces
+     * @param stdout the recorded output of the command
+     */
+    ReplayCommandLineRunner replay(String commandLine, String stdout) {
+        outputs.put(commandLine, stdout.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    @Override
+    protected Result execute(String[] commandArgs, boolean handleQuotes, long timeoutMillis) throws IOException {
+        byte[] stdout = outputs.get(String.join(" ", commandArgs));
+        if (stdout == null) {
+            throw new IOException("Cannot run program \"" + commandArgs[0] + "\": error=2, No such file or directory");
+        }
+        return new Result(0, stdout, new byte[0]);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsers of {@link HostInfoCommandWindows} over replayed wmic
+ * outputs, listing one processor per socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WindowsParserBenchmark {
+
+    @Param({"2", "64"})
+    public int sockets;
+
+    private HostInfoCommandWindows windows;
+
+    @Setup
+    public void setUp() {
+        final CommandLineRunner runner = HostFixture.windowsRunner(sockets);
+        windows = new HostInfoCommandWindows() {
+            @Override
+            public CommandLineRunner getRunner() {
+                return runner;
+            }
+        };
+    }
+
+    @Benchmark
+    public String osName() throws Exception {
+        return windows.getOsName();
+    }
+
+    @Benchmark
+    public String biosVersion() throws Exception {
+        return windows.getBiosVersion();
+    }
+
+    @Benchmark
+    public String vmmVersion() throws Exception {
+        return windows.getVmmVersion();
+    }
+
+    @Benchmark
+    public String processorInfo() throws Exception {
+        return windows.getProcessorInfo();
+    }
+
+    @Benchmark
+    public String hardwareUuid() throws Exception {
+        return windows.getHardwareUUID();
+    }
+
+    @Benchmark
+    public String tpmVersion() throws Exception {
+        return windows.getTpmVersion();
+    }
+
+    @Benchmark
+    public int numberOfSockets() throws Exception {
+        return windows.getNumberOfSockets();
+    }
+}
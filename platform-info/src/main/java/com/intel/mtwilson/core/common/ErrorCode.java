@@ -18,6 +18,7 @@ public enum ErrorCode {
     FATAL_ERROR(1006,"TrustAgent: Fatal unknown error"), 
     COMMAND_ERROR(1007,"TrustAgent: "),
     UNSUPPORTED_OPERATION(1008, "TrustAgent: Unsupported operation"),
+    COMMAND_TIMEOUT(1009, "TrustAgent: Command timed out"),
     ERROR(1, "TrustAgent:");
 
     public int getErrorCode() {
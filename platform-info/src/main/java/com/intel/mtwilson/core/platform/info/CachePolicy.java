@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long {@link PlatformInfo} keeps each collected field before probing
+ * it again. Policies are immutable; {@link #withTtl} returns a copy.
+ *
+ * @since 1.4.2
+ */
+public final class CachePolicy {
+
+    /**
+     * Time to live of a field that is kept until it is invalidated.
+     */
+    public static final long FOREVER = Long.MAX_VALUE;
+
+    private static final long SHORT_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long LONG_TTL_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final Map<HostInfoField, Long> ttlNanos;
+
+    private CachePolicy(Map<HostInfoField, Long> ttlNanos) {
+        this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * Keeps every field until it is invalidated, which is how PlatformInfo
+     * cached before policies existed.
+     *
+     * @return the policy
+     */
+    public static CachePolicy permanent() {
+        Map<HostInfoField, Long> ttlNanos = new EnumMap<>(HostInfoField.class);
+        for (HostInfoField field : HostInfoField.values()) {
+            ttlNanos.put(field, FOREVER);
+        }
+        return new CachePolicy(ttlNanos);
+    }
+
+    /**
+     * Keeps the firmware and processor fields, which cannot change without
+     * a reboot, until they are invalidated; re-reads the OS release after an
+     * hour; and re-probes the host name, VMM, installed components, TPM
+     * state and TXT, tboot and SUEFI status after a minute.
+     *
+     * @return the policy
+     */
+    public static CachePolicy defaults() {
+        return permanent()
+                .withTtlNanos(HostInfoField.OS_NAME, LONG_TTL_NANOS)
+                .withTtlNanos(HostInfoField.OS_VERSION, LONG_TTL_NANOS)
+                .withTtlNanos(HostInfoField.HOST_NAME, SHORT_TTL_NANOS)
+                .withTtlNanos(HostInfoField.VMM_NAME, SHORT_TTL_NANOS)
+                .withTtlNanos(HostInfoField.VMM_VERSION, SHORT_TTL_NANOS)
+                .withTtlNanos(HostInfoField.INSTALLED_COMPONENTS, SHORT_TTL_NANOS)
+                .withTtlNanos(HostInfoField.TPM_ENABLED, SHORT_TTL_NANOS)
+                .withTtlNanos(HostInfoField.TXT_STATUS, SHORT_TTL_NANOS)
+                .withTtlNanos(HostInfoField.TBOOT_STATUS, SHORT_TTL_NANOS)
+                .withTtlNanos(HostInfoField.SUEFI_STATUS, SHORT_TTL_NANOS);
+    }
+
+    /**
+     * @param field the field
+     * @param ttl how long a probed value is kept, 0 to probe on every call, or {@link #FOREVER}
+     * @param unit the unit of the time to live
+     * @return a copy of this policy with the given time to live for the field
+     */
+    public CachePolicy withTtl(HostInfoField field, long ttl, TimeUnit unit) {
+        return withTtlNanos(field, ttl == FOREVER ? FOREVER : unit.toNanos(ttl));
+    }
+
+    private CachePolicy withTtlNanos(HostInfoField field, long nanos) {
+        Map<HostInfoField, Long> copy = new EnumMap<>(ttlNanos);
+        copy.put(field, Math.max(nanos, 0));
+        return new CachePolicy(copy);
+    }
+
+    /**
+     * @param field the field
+     * @return the time to live of the field in nanoseconds, or {@link #FOREVER}
+     */
+    public long getTtlNanos(HostInfoField field) {
+        return ttlNanos.get(field);
+    }
+}
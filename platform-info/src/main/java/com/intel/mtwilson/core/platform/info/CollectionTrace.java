@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how {@link PlatformInfo#getHostInfo(CollectionTrace)} obtained
+ * each field: whether it came from the cache, from files of the host or
+ * from commands, which commands ran and how long they took. The critical
+ * path names the probes that determined the duration of the collection,
+ * which is where a slow collection is best sped up.
+ *
+ * <pre>
+ * CollectionTrace trace = new CollectionTrace();
+ * HostInfo hostInfo = platformInfo.getHostInfo(trace);
+ * log.info("{}", trace);
+ * </pre>
+ *
+ * Probes that other collections of the same PlatformInfo run at the same
+ * time are recorded as well, since the fields are shared through the cache.
+ *
+ * @since 1.4.2
+ */
+public final class CollectionTrace {
+
+    /**
+     * Where the value of a field came from.
+     */
+    public enum Source {
+        /**
+         * A value cached by an earlier probe or loaded from a snapshot; nothing was probed.
+         */
+        CACHE,
+        /**
+         * The probe ran no command; the value was read from files or devices of the host.
+         */
+        FILE,
+        /**
+         * The probe ran or reused at least one command.
+         */
+        COMMAND
+    }
+
+    private final Map<HostInfoField, FieldTrace> fields = new EnumMap<>(HostInfoField.class);
+    private final List<FieldTrace> completed = new ArrayList<>();
+    private long startedAt;
+    private long durationNanos;
+
+    synchronized void start() {
+        fields.clear();
+        completed.clear();
+        startedAt = System.nanoTime();
+        durationNanos = 0;
+    }
+
+    synchronized void end() {
+        durationNanos = System.nanoTime() - startedAt;
+    }
+
+    /**
+     * Records a field served from the cache, unless it was already probed in this collection.
+     */
+    synchronized void cached(HostInfoField field) {
+        if (!fields.containsKey(field)) {
+            long offset = System.nanoTime() - startedAt;
+            FieldTrace trace = new FieldTrace(this, field, true, offset);
+            trace.endNanos = offset;
+            fields.put(field, trace);
+        }
+    }
+
+    synchronized FieldTrace probeStarted(HostInfoField field) {
+        FieldTrace trace = new FieldTrace(this, field, false, System.nanoTime() - startedAt);
+        FieldTrace previous = fields.get(field);
+        if (previous == null || previous.cached) {
+            fields.put(field, trace);
+        }
+        return trace;
+    }
+
+    /**
+     * @return how long the collection took
+     */
+    public synchronized long getDuration(TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the trace of each field of the collection, in the order of the fields
+     */
+    public synchronized Map<HostInfoField, FieldTrace> getFields() {
+        return Collections.unmodifiableMap(new EnumMap<>(fields));
+    }
+
+    /**
+     * @return the trace of the field, or null if the collection did not need it
+     */
+    public synchronized FieldTrace getField(HostInfoField field) {
+        return fields.get(field);
+    }
+
+    /**
+     * Returns the probes that determined the duration of the collection: the
+     * probe that ended last, preceded by the probe that ended last before it
+     * started, and so on. When the probes run one after another this is
+     * every probe; when they run concurrently it is usually the slowest one.
+     *
+     * @return the probes in the order they ran
+     */
+    public synchronized List<FieldTrace> getCriticalPath() {
+        List<FieldTrace> path = new ArrayList<>();
+        long before = Long.MAX_VALUE;
+        while (true) {
+            FieldTrace latest = null;
+            for (FieldTrace trace : completed) {
+                if (trace.endNanos <= before && (latest == null || trace.endNanos > latest.endNanos)) {
+                    latest = trace;
+                }
+            }
+            if (latest == null) {
+                break;
+            }
+            path.add(latest);
+            before = latest.startNanos;
+            if (before <= 0) {
+                break;
+            }
+            before--;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("collection took ").append(TimeUnit.NANOSECONDS.toMicros(durationNanos)).append(" us, critical path:");
+        for (FieldTrace trace : getCriticalPath()) {
+            builder.append(' ').append(trace.field);
+        }
+        for (FieldTrace trace : fields.values()) {
+            builder.append('\n').append(trace);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * How one field was obtained.
+     */
+    public static final class FieldTrace {
+
+        private final CollectionTrace owner;
+        private final HostInfoField field;
+        private final boolean cached;
+        private final long startNanos;
+        private long endNanos;
+        private Exception error;
+        private final List<CommandTrace> commands = new ArrayList<>();
+
+        private FieldTrace(CollectionTrace owner, HostInfoField field, boolean cached, long startNanos) {
+            this.owner = owner;
+            this.field = field;
+            this.cached = cached;
+            this.startNanos = startNanos;
+        }
+
+        void probeEnded(Exception error) {
+            synchronized (owner) {
+                endNanos = System.nanoTime() - owner.startedAt;
+                this.error = error;
+                owner.completed.add(this);
+            }
+        }
+
+        void commandExecuted(String[] commandArgs, long runtimeNanos, Integer exitCode, Exception error, boolean reused) {
+            synchronized (owner) {
+                commands.add(new CommandTrace(String.join(" ", commandArgs), runtimeNanos, exitCode, error, reused));
+            }
+        }
+
+        public HostInfoField getField() {
+            return field;
+        }
+
+        public Source getSource() {
+            if (cached) {
+                return Source.CACHE;
+            }
+            return commands.isEmpty() ? Source.FILE : Source.COMMAND;
+        }
+
+        /**
+         * @return true if the cached value was used
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        /**
+         * @return when the probe started, relative to the start of the collection
+         */
+        public long getStart(TimeUnit unit) {
+            return unit.convert(startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getDuration(TimeUnit unit) {
+            return unit.convert(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return the exception of a failed probe, or null
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * @return the commands of the probe, in the order they ran
+         */
+        public List<CommandTrace> getCommands() {
+            return Collections.unmodifiableList(commands);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(field).append(' ').append(getSource());
+            if (!cached) {
+                builder.append(' ').append(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos)).append(" us");
+            }
+            if (error != null) {
+                builder.append(" failed: ").append(error.getMessage());
+            }
+            for (CommandTrace command : commands) {
+                builder.append("\n    ").append(command);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * One command run, or reused, by a probe.
+     */
+    public static final class CommandTrace {
+
+        private final String commandLine;
+        private final long durationNanos;
+        private final Integer exitCode;
+        private final Exception error;
+        private final boolean reused;
+
+        private CommandTrace(String commandLine, long durationNanos, Integer exitCode, Exception error, boolean reused) {
+            this.commandLine = commandLine;
+            this.durationNanos = durationNanos;
+            this.exitCode = exitCode;
+            this.error = error;
+            this.reused = reused;
+        }
+
+        /**
+         * @return the executable and its arguments joined by spaces
+         */
+        public String getCommandLine() {
+            return commandLine;
+        }
+
+        /**
+         * @return the runtime of the command, or the time waited for the result of a reused command
+         */
+        public long getDuration(TimeUnit unit) {
+            return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return the exit code, or null if the command failed to run or its result was reused
+         */
+        public Integer getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * @return the exception of a command that could not be run or timed out, or null
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * @return true if the result of the same command run by another probe of the collection was used
+         */
+        public boolean isReused() {
+            return reused;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(commandLine);
+            builder.append(" (");
+            if (reused) {
+                builder.append("reused, ");
+            } else if (error != null) {
+                builder.append("failed: ").append(error.getMessage()).append(", ");
+            } else {
+                builder.append("exit ").append(exitCode).append(", ");
+            }
+            return builder.append(TimeUnit.NANOSECONDS.toMicros(durationNanos)).append(" us)").toString();
+        }
+    }
+}
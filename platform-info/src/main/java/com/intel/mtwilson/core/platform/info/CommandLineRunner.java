@@ -4,16 +4,37 @@
  */
 package com.intel.mtwilson.core.platform.info;
 
+import com.intel.mtwilson.core.common.ErrorCode;
 import com.intel.mtwilson.core.common.PlatformInfoException;
 import com.intel.mtwilson.util.exec.ExecUtil;
 import com.intel.mtwilson.util.exec.Result;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.exec.Watchdog;
 
 /**
  * Form the command with the supplied arguments and execute the command
@@ -24,8 +45,68 @@ import org.apache.commons.exec.CommandLine;
 public class CommandLineRunner {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CommandLineRunner.class);
+
+    /**
+     * Timeout value meaning that a command may run for as long as it takes.
+     */
+    public static final long NO_TIMEOUT = 0;
+
+    /**
+     * Exit code of a streamed command that was stopped by its line consumer
+     * but whose own exit code could not be read, because its children kept
+     * its output open; the status of a process killed by SIGTERM.
+     *
+     * @since 1.4.2
+     */
+    public static final int STOPPED = 128 + 15;
+
+    /**
+     * How long to wait for the output of a killed command, whose pipes may be
+     * held open by its own children.
+     */
+    private static final long STREAM_STOP_TIMEOUT_MILLIS = 2000;
+
+    /*
+        coreutils timeout(1) with no time limit of its own: it runs the command in a new process group
+        whose id is its own pid, which ProcessGroupWatchdog signals so that children of a killed command
+        cannot keep its output open; if that pid cannot be read, timeout passes the SIGTERM of the
+        watchdog on to the group and sends SIGKILL after a second. null where it is not available
+     */
+    private static final String[] PROCESS_GROUP = processGroupCommand();
+    private static final int COMMAND_NOT_FOUND = 127;
+
+    /**
+     * How long a killed process group gets to exit on SIGTERM before it is sent SIGKILL.
+     */
+    private static final long KILL_AFTER_MILLIS = 1000;
+
     private Function<String[], String[]> hook;
 
+    private volatile ProbeListener probeListener = ProbeListener.NONE;
+
+    /*
+        set while a command runs with a listener, for execute() to report what only it can measure
+     */
+    private static final ThreadLocal<Measurement> measurement = new ThreadLocal<>();
+
+    private static final class Measurement {
+        private long startedAt;
+        private boolean started;
+        private long outputBytes = -1;
+    }
+
+    private volatile long defaultTimeoutMillis = NO_TIMEOUT;
+    private final ConcurrentMap<String, Long> timeoutsMillis = new ConcurrentHashMap<>();
+
+    /*
+        runners that produce results of their own get their lines streamed from the result
+     */
+    private final boolean executeOverridden = overridesExecute(getClass());
+
+    private final Object scopeLock = new Object();
+    private int scopeDepth;
+    private volatile ScopeState scopeState;
+
     public CommandLineRunner() {
 
     }
@@ -38,35 +119,732 @@ public class CommandLineRunner {
         this.hook = hook;
     }
 
+    /**
+     * Sets the timeout of commands that have no timeout of their own. A
+     * command that runs longer is killed and fails with
+     * {@link ErrorCode#COMMAND_TIMEOUT}.
+     *
+     * @param timeout the timeout, or {@link #NO_TIMEOUT}
+     * @param unit the unit of the timeout
+     */
+    public void setDefaultTimeout(long timeout, TimeUnit unit) {
+        this.defaultTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * Sets the timeout of one command, for example "virsh", which overrides
+     * the default timeout.
+     *
+     * @param baseCmd the command as passed to {@link #executeCommand(String, String...)}
+     * @param timeout the timeout, or {@link #NO_TIMEOUT}
+     * @param unit the unit of the timeout
+     */
+    public void setTimeout(String baseCmd, long timeout, TimeUnit unit) {
+        timeoutsMillis.put(baseCmd, unit.toMillis(timeout));
+    }
+
+    /**
+     * Sets the listener that receives the timings of every executed command.
+     * Commands whose result is reused within a scope are not reported again.
+     *
+     * @param probeListener the listener, or {@link ProbeListener#NONE}
+     */
+    public void setProbeListener(ProbeListener probeListener) {
+        this.probeListener = probeListener == null ? ProbeListener.NONE : probeListener;
+    }
+
+    public ProbeListener getProbeListener() {
+        return probeListener;
+    }
+
+    private long getTimeoutMillis(String baseCmd) {
+        Long timeout = timeoutsMillis.get(baseCmd);
+        return timeout == null ? defaultTimeoutMillis : timeout;
+    }
+
     public Result executeCommand(String baseCmd, String... args) throws PlatformInfoException, IOException {
-        List<String> flatArgs = new ArrayList(Arrays.asList(args));
-        flatArgs.add(0, baseCmd);
-        String[] commandArgs = flatArgs.toArray(new String[0]);
-        if(hook != null) {
-            commandArgs = hook.apply(commandArgs);
+        return executeCommand(baseCmd, true, args);
+    }
+
+    public Result executeCommand(String baseCmd, boolean handleQuotes, String... args) throws PlatformInfoException, IOException {
+        String[] commandArgs = commandArgs(baseCmd, args);
+        long timeoutMillis = getTimeoutMillis(baseCmd);
+        ScopeState state = scopeState;
+        if (state == null) {
+            return executeMeasured(commandArgs, handleQuotes, timeoutMillis, null);
         }
+        return executeOnce(state, commandArgs, handleQuotes, timeoutMillis);
+    }
 
-        CommandLine command = new CommandLine(commandArgs[0]);
-        for(int i = 1; i < commandArgs.length; i++) {
-            command.addArgument(commandArgs[i]);
+    /**
+     * Executes the command and passes each line of its standard output to
+     * the consumer as soon as it is read, until the consumer returns false:
+     * the command is then killed and the rest of its output is ignored. The
+     * output is never buffered as a whole, which suits commands of which
+     * only the first lines are needed, such as "dmidecode -s bios-vendor".
+     *
+     * Within a scope, a command line that already ran is answered with the
+     * lines of the earlier result. A streamed command is not remembered by
+     * the scope, since its output is not kept.
+     *
+     * @param lineConsumer receives each line without its line terminator and returns false to stop the command
+     * @param baseCmd the command
+     * @param args the arguments of the command
+     * @return the exit code and standard error of the command, whose standard output must not be relied upon; a stopped command has the exit code of the killed process, or {@link #STOPPED} if that cannot be read
+     * @since 1.4.2
+     */
+    public Result streamCommand(Predicate<String> lineConsumer, String baseCmd, String... args) throws PlatformInfoException, IOException {
+        String[] commandArgs = commandArgs(baseCmd, args);
+        long timeoutMillis = getTimeoutMillis(baseCmd);
+        ScopeState state = scopeState;
+        if (state == null) {
+            return executeMeasured(commandArgs, true, timeoutMillis, lineConsumer);
+        }
+        CompletableFuture<Result> existing = state.results.get(new CommandKey(commandArgs, true));
+        if (existing == null) {
+            return executeBeforeDeadline(state, commandArgs, true, timeoutMillis, lineConsumer);
         }
-        
-        return ExecUtil.execute(command);
+        Result result = awaitReused(existing, commandArgs);
+        if (result != null) {
+            streamLines(result.getStdout(), lineConsumer);
+        }
+        return result;
     }
-    
-    public Result executeCommand(String baseCmd, boolean handleQuotes, String... args) throws PlatformInfoException, IOException {
-        List<String> flatArgs = new ArrayList(Arrays.asList(args));
+
+    private String[] commandArgs(String baseCmd, String[] args) {
+        List<String> flatArgs = new ArrayList<>(Arrays.asList(args));
         flatArgs.add(0, baseCmd);
         String[] commandArgs = flatArgs.toArray(new String[0]);
         if(hook != null) {
             commandArgs = hook.apply(commandArgs);
         }
+        return commandArgs;
+    }
+
+    /**
+     * Runs {@link #execute}, or {@link #executeStreaming} when there is a
+     * line consumer, and reports it to the probe listener, if there is one.
+     */
+    private Result executeMeasured(String[] commandArgs, boolean handleQuotes, long timeoutMillis, Predicate<String> lineConsumer) throws PlatformInfoException, IOException {
+        ProbeListener listener = probeListener;
+        if (listener == ProbeListener.NONE) {
+            return run(commandArgs, handleQuotes, timeoutMillis, lineConsumer);
+        }
+        Measurement current = new Measurement();
+        measurement.set(current);
+        long start = System.nanoTime();
+        try {
+            Result result = run(commandArgs, handleQuotes, timeoutMillis, lineConsumer);
+            listener.commandExecuted(commandArgs, current.started ? current.startedAt - start : -1,
+                    System.nanoTime() - start, result.getExitCode(), current.outputBytes);
+            return result;
+        } catch (PlatformInfoException | IOException | RuntimeException e) {
+            listener.commandFailed(commandArgs, System.nanoTime() - start, e);
+            throw e;
+        } finally {
+            measurement.remove();
+        }
+    }
+
+    private Result run(String[] commandArgs, boolean handleQuotes, long timeoutMillis, Predicate<String> lineConsumer) throws PlatformInfoException, IOException {
+        if (lineConsumer == null) {
+            return execute(commandArgs, handleQuotes, timeoutMillis);
+        }
+        return executeStreaming(commandArgs, handleQuotes, timeoutMillis, lineConsumer);
+    }
 
+    /**
+     * Lets {@link #execute} report that the process of the command is running,
+     * which the probe listener receives as the spawn time.
+     */
+    protected static void processStarted() {
+        Measurement current = measurement.get();
+        if (current != null) {
+            current.startedAt = System.nanoTime();
+            current.started = true;
+        }
+    }
+
+    /**
+     * Lets {@link #execute} report the size of the standard output of the command.
+     */
+    protected static void outputRead(long bytes) {
+        Measurement current = measurement.get();
+        if (current != null) {
+            current.outputBytes = bytes;
+        }
+    }
+
+    /**
+     * Executes the final command line, after the hook has been applied.
+     *
+     * @param commandArgs executable followed by its arguments
+     * @param handleQuotes whether quotes in the arguments are handled by commons-exec
+     * @param timeoutMillis how long the command may run, or {@link #NO_TIMEOUT}
+     * @return the result of the command
+     * @throws PlatformInfoException with {@link ErrorCode#COMMAND_TIMEOUT} if the command was killed after the timeout
+     */
+    protected Result execute(String[] commandArgs, boolean handleQuotes, long timeoutMillis) throws PlatformInfoException, IOException {
+        CommandLine command = commandLine(commandArgs, handleQuotes);
+        boolean measured = measurement.get() != null;
+        if (timeoutMillis <= NO_TIMEOUT && !measured) {
+            return ExecUtil.execute(command);
+        }
+
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        PumpStreamHandler streamHandler = measured ? new StartReportingStreamHandler(stdout, stderr) : new PumpStreamHandler(stdout, stderr);
+        streamHandler.setStopTimeout(STREAM_STOP_TIMEOUT_MILLIS);
+        DefaultExecutor executor = new DefaultExecutor();
+        executor.setExitValues(null);
+        executor.setStreamHandler(streamHandler);
+        ExecuteWatchdog watchdog = null;
+        if (timeoutMillis > NO_TIMEOUT) {
+            watchdog = new ProcessGroupWatchdog(timeoutMillis);
+            executor.setWatchdog(watchdog);
+            command = killableCommandLine(commandArgs, handleQuotes);
+        }
+        int exitCode;
+        try {
+            exitCode = executor.execute(command);
+        } catch (ExecuteException e) {
+            // a killed command whose output stayed open past the stop timeout still timed out
+            if (watchdog != null && watchdog.killedProcess()) {
+                throw timeout(commandArgs, timeoutMillis);
+            }
+            throw e;
+        }
+        if (watchdog != null && watchdog.killedProcess()) {
+            throw timeout(commandArgs, timeoutMillis);
+        }
+        if (watchdog != null) {
+            checkStarted(commandArgs, exitCode, stderr);
+        }
+        outputRead(stdout.size());
+        return new Result(exitCode, stdout.toByteArray(), stderr.toByteArray());
+    }
+
+    /**
+     * Executes the final command line, after the hook has been applied, and
+     * passes the lines of its standard output to the consumer while it runs.
+     * The command is killed as soon as the consumer returns false.
+     *
+     * Runners that override {@link #execute} get the lines of its result
+     * instead, so they only override this method if they can stream.
+     *
+     * @param commandArgs executable followed by its arguments
+     * @param handleQuotes whether quotes in the arguments are handled by commons-exec
+     * @param timeoutMillis how long the command may run, or {@link #NO_TIMEOUT}
+     * @param lineConsumer receives each line and returns false to stop the command
+     * @return the exit code and standard error of the command; {@link #STOPPED} for a stopped command whose exit code cannot be read
+     * @throws PlatformInfoException with {@link ErrorCode#COMMAND_TIMEOUT} if the command was killed after the timeout
+     */
+    protected Result executeStreaming(String[] commandArgs, boolean handleQuotes, long timeoutMillis, Predicate<String> lineConsumer) throws PlatformInfoException, IOException {
+        if (executeOverridden) {
+            Result result = execute(commandArgs, handleQuotes, timeoutMillis);
+            if (result != null) {
+                streamLines(result.getStdout(), lineConsumer);
+            }
+            return result;
+        }
+
+        CommandLine command = killableCommandLine(commandArgs, handleQuotes);
+        ExecuteWatchdog watchdog = new ProcessGroupWatchdog(timeoutMillis > NO_TIMEOUT ? timeoutMillis : ExecuteWatchdog.INFINITE_TIMEOUT);
+        LineOutputStream stdout = new LineOutputStream(lineConsumer, watchdog);
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        PumpStreamHandler streamHandler = measurement.get() != null ? new StartReportingStreamHandler(stdout, stderr) : new PumpStreamHandler(stdout, stderr);
+        streamHandler.setStopTimeout(STREAM_STOP_TIMEOUT_MILLIS);
+        DefaultExecutor executor = new DefaultExecutor();
+        executor.setExitValues(null);
+        executor.setStreamHandler(streamHandler);
+        executor.setWatchdog(watchdog);
+        int exitCode;
+        try {
+            exitCode = executor.execute(command);
+        } catch (ExecuteException e) {
+            // children of a stopped command may hold its output open past the stop timeout; the rest is not needed
+            if (stdout.stopped) {
+                exitCode = STOPPED;
+            } else if (watchdog.killedProcess()) {
+                throw timeout(commandArgs, timeoutMillis);
+            } else {
+                throw e;
+            }
+        } finally {
+            stdout.close();
+        }
+        if (stdout.error != null) {
+            throw stdout.error;
+        }
+        if (!stdout.stopped && watchdog.killedProcess()) {
+            throw timeout(commandArgs, timeoutMillis);
+        }
+        checkStarted(commandArgs, exitCode, stderr);
+        outputRead(stdout.bytes);
+        return new Result(exitCode, new byte[0], stderr.toByteArray());
+    }
+
+    private static CommandLine commandLine(String[] commandArgs, boolean handleQuotes) {
         CommandLine command = new CommandLine(commandArgs[0]);
         for(int i = 1; i < commandArgs.length; i++) {
             command.addArgument(commandArgs[i], handleQuotes);
         }
-        
-        return ExecUtil.execute(command);
+        return command;
+    }
+
+    /**
+     * Builds the command line of a command that may be killed, in a process
+     * group of its own where possible, so that the watchdog kills the whole
+     * process tree and not only the direct child.
+     */
+    private static CommandLine killableCommandLine(String[] commandArgs, boolean handleQuotes) {
+        if (PROCESS_GROUP == null) {
+            return commandLine(commandArgs, handleQuotes);
+        }
+        CommandLine command = new CommandLine(PROCESS_GROUP[0]);
+        for (int i = 1; i < PROCESS_GROUP.length; i++) {
+            command.addArgument(PROCESS_GROUP[i], false);
+        }
+        for (String arg : commandArgs) {
+            command.addArgument(arg, handleQuotes);
+        }
+        return command;
+    }
+
+    /**
+     * timeout(1) exits with status 127 if it cannot find the command, which
+     * the executor reports as an IOException when it runs the command itself.
+     */
+    private static void checkStarted(String[] commandArgs, int exitCode, ByteArrayOutputStream stderr) throws IOException {
+        if (PROCESS_GROUP != null && exitCode == COMMAND_NOT_FOUND) {
+            throw new IOException("Cannot run program \"" + commandArgs[0] + "\": " + stderr.toString().trim());
+        }
+    }
+
+    private static String[] processGroupCommand() {
+        String path = System.getenv("PATH");
+        if (File.separatorChar != '/' || path == null) {
+            return null;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            Path timeout = Paths.get(dir, "timeout");
+            if (Files.isExecutable(timeout)) {
+                try {
+                    // the busybox applet neither forwards signals nor uses a process group
+                    if (timeout.toRealPath().getFileName().toString().equals("busybox")) {
+                        return null;
+                    }
+                } catch (IOException e) {
+                    continue;
+                }
+                return new String[] { timeout.toString(), "--kill-after=1", "0" };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Passes the lines of an output that was already read to the consumer, until it returns false.
+     */
+    private static void streamLines(String output, Predicate<String> lineConsumer) {
+        if (output == null) {
+            return;
+        }
+        int start = 0;
+        while (start < output.length()) {
+            int newline = output.indexOf('\n', start);
+            int end = newline < 0 ? output.length() : newline;
+            String line = output.substring(start, end > start && output.charAt(end - 1) == '\r' ? end - 1 : end);
+            if (!lineConsumer.test(line)) {
+                return;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static boolean overridesExecute(Class<?> type) {
+        for (Class<?> c = type; c != CommandLineRunner.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("execute", String[].class, boolean.class, long.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not declared by this class
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits the standard output of a command into lines for the consumer,
+     * keeping only the line being read, and kills the command when the
+     * consumer returns false. The consumer runs on the thread of the pump;
+     * an exception it throws stops the command and is rethrown to the caller.
+     * The caller reads the fields after {@link #close()}, which synchronizes
+     * with a pump that is still writing.
+     */
+    private static final class LineOutputStream extends OutputStream {
+
+        private final Predicate<String> lineConsumer;
+        private final ExecuteWatchdog watchdog;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        private long bytes;
+        private volatile boolean stopped;
+        private RuntimeException error;
+
+        private LineOutputStream(Predicate<String> lineConsumer, ExecuteWatchdog watchdog) {
+            this.lineConsumer = lineConsumer;
+            this.watchdog = watchdog;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            bytes += len;
+            int start = off;
+            for (int i = off; i < off + len && !stopped; i++) {
+                if (b[i] == '\n') {
+                    line.write(b, start, i - start);
+                    endLine();
+                    start = i + 1;
+                }
+            }
+            if (!stopped) {
+                line.write(b, start, off + len - start);
+            }
+        }
+
+        private void endLine() {
+            int length = line.size();
+            String text = line.toString();
+            line.reset();
+            if (length > 0 && text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            boolean more;
+            try {
+                more = lineConsumer.test(text);
+            } catch (RuntimeException e) {
+                error = e;
+                more = false;
+            }
+            if (!more) {
+                stopped = true;
+                watchdog.destroyProcess();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!stopped && line.size() > 0) {
+                endLine();
+            }
+        }
+    }
+
+    /**
+     * Kills the process group of a command started by {@link #killableCommandLine}
+     * rather than only the timeout(1) wrapper, which is what the executor
+     * started: the group is sent SIGTERM, then SIGKILL once the wrapper has
+     * exited or {@link #KILL_AFTER_MILLIS} have passed, so that no child of
+     * the command survives it. Without the wrapper, or if the pid of the
+     * wrapper cannot be read, only the process is destroyed.
+     */
+    private static final class ProcessGroupWatchdog extends ExecuteWatchdog {
+
+        private Process process;
+        private boolean killedGroup;
+
+        private ProcessGroupWatchdog(long timeoutMillis) {
+            super(timeoutMillis);
+        }
+
+        @Override
+        public synchronized void start(Process processToMonitor) {
+            process = processToMonitor;
+            super.start(processToMonitor);
+        }
+
+        @Override
+        public synchronized void timeoutOccured(Watchdog w) {
+            // the group id is only signalled while the wrapper, its leader, has not been reaped
+            long group = PROCESS_GROUP != null && process != null && process.isAlive() ? pid(process) : -1;
+            if (group > 0) {
+                // the wrapper may exit on this before the superclass sees it running, so it is a kill regardless
+                killedGroup = true;
+                signalGroup("TERM", group);
+            }
+            super.timeoutOccured(w);
+            if (group > 0) {
+                try {
+                    process.waitFor(KILL_AFTER_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                signalGroup("KILL", group);
+            }
+        }
+
+        @Override
+        public synchronized boolean killedProcess() {
+            return killedGroup || super.killedProcess();
+        }
+
+        private static void signalGroup(String signal, long group) {
+            try {
+                Process kill = new ProcessBuilder("kill", "-" + signal, "--", "-" + group).redirectErrorStream(true).start();
+                kill.getOutputStream().close();
+                kill.waitFor();
+                kill.getInputStream().close();
+            } catch (IOException e) {
+                log.debug("Cannot send SIG{} to process group {}: {}", signal, group, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @return the pid of the process, from Process.pid() on Java 9 and later or the pid field of Java 8, or -1
+         */
+        private static long pid(Process process) {
+            try {
+                return (Long) Process.class.getMethod("pid").invoke(process);
+            } catch (NoSuchMethodException e) {
+                try {
+                    Field pid = process.getClass().getDeclaredField("pid");
+                    pid.setAccessible(true);
+                    return pid.getInt(process);
+                } catch (ReflectiveOperationException | RuntimeException ex) {
+                    return -1;
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * The executor connects the streams right after it started the process.
+     */
+    private static final class StartReportingStreamHandler extends PumpStreamHandler {
+
+        private StartReportingStreamHandler(OutputStream out, OutputStream err) {
+            super(out, err);
+        }
+
+        @Override
+        public void setProcessInputStream(OutputStream os) {
+            processStarted();
+            super.setProcessInputStream(os);
+        }
+    }
+
+    /**
+     * @return the exception reported for a command that was killed after the timeout
+     */
+    protected static PlatformInfoException timeout(String[] commandArgs, long timeoutMillis) {
+        return new PlatformInfoException(ErrorCode.COMMAND_TIMEOUT,
+                "Command " + String.join(" ", commandArgs) + " timed out after " + timeoutMillis + " ms");
+    }
+
+    /**
+     * Runs the command unless the same command line was already executed, or
+     * is still executing, in the current scope; in that case the earlier
+     * result (or failure) is returned. The timeout is shortened to what is
+     * left until the deadline of the scope.
+     */
+    private Result executeOnce(ScopeState state, String[] commandArgs, boolean handleQuotes, long timeoutMillis) throws PlatformInfoException, IOException {
+        CompletableFuture<Result> pending = new CompletableFuture<>();
+        CompletableFuture<Result> existing = state.results.putIfAbsent(new CommandKey(commandArgs, handleQuotes), pending);
+        if (existing == null) {
+            try {
+                Result result = executeBeforeDeadline(state, commandArgs, handleQuotes, timeoutMillis, null);
+                pending.complete(result);
+                return result;
+            } catch (Throwable e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        return awaitReused(existing, commandArgs);
+    }
+
+    /**
+     * Waits for the result of a command line already executed in the current scope.
+     */
+    private Result awaitReused(CompletableFuture<Result> existing, String[] commandArgs) throws PlatformInfoException, IOException {
+        log.debug("Reusing result of {} from the current command scope", Arrays.toString(commandArgs));
+        ProbeListener listener = probeListener;
+        long start = listener == ProbeListener.NONE ? 0 : System.nanoTime();
+        try {
+            Result result = existing.join();
+            if (listener != ProbeListener.NONE) {
+                listener.commandReused(commandArgs, System.nanoTime() - start);
+            }
+            return result;
+        } catch (CompletionException e) {
+            if (listener != ProbeListener.NONE) {
+                listener.commandReused(commandArgs, System.nanoTime() - start);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof PlatformInfoException) {
+                throw (PlatformInfoException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    private Result executeBeforeDeadline(ScopeState state, String[] commandArgs, boolean handleQuotes, long timeoutMillis, Predicate<String> lineConsumer) throws PlatformInfoException, IOException {
+        if (state.deadlineNanos == 0) {
+            return executeMeasured(commandArgs, handleQuotes, timeoutMillis, lineConsumer);
+        }
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(state.deadlineNanos - System.nanoTime());
+        if (remainingMillis <= 0) {
+            state.deadlineExceeded = true;
+            throw new PlatformInfoException(ErrorCode.COMMAND_TIMEOUT,
+                    "Deadline exceeded before running " + String.join(" ", commandArgs));
+        }
+        boolean limitedByDeadline = timeoutMillis <= NO_TIMEOUT || remainingMillis < timeoutMillis;
+        try {
+            return executeMeasured(commandArgs, handleQuotes, limitedByDeadline ? remainingMillis : timeoutMillis, lineConsumer);
+        } catch (PlatformInfoException e) {
+            if (limitedByDeadline && e.getErrorCode() == ErrorCode.COMMAND_TIMEOUT) {
+                state.deadlineExceeded = true;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a command scope. While at least one scope is open, every distinct
+     * command line (as produced by the hook) is executed at most once and
+     * concurrent callers of the same command wait for the one execution in
+     * flight. The remembered results are dropped when the last scope closes.
+     *
+     * @return the scope, to be closed when the collection is complete
+     */
+    public Scope openScope() {
+        return openScope(NO_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a command scope with a deadline: commands started within the
+     * scope are killed when the deadline passes, and commands started after
+     * it fail right away, with {@link ErrorCode#COMMAND_TIMEOUT}. The deadline
+     * is set by the outermost scope only.
+     *
+     * @param timeout time from now until the deadline, or {@link #NO_TIMEOUT}
+     * @param unit the unit of the timeout
+     * @return the scope, to be closed when the collection is complete
+     */
+    public Scope openScope(long timeout, TimeUnit unit) {
+        synchronized (scopeLock) {
+            if (scopeDepth++ == 0) {
+                long deadlineNanos = 0;
+                if (timeout > NO_TIMEOUT) {
+                    // 0 means no deadline
+                    deadlineNanos = (System.nanoTime() + unit.toNanos(timeout)) | 1;
+                }
+                scopeState = new ScopeState(deadlineNanos);
+            }
+            return new Scope(scopeState);
+        }
+    }
+
+    /**
+     * Returns the value computed at most once per scope for the key, so that
+     * work shared by several probes, such as parsing the SMBIOS table, is done
+     * once per collection. Concurrent callers wait for the one computation.
+     * Outside a scope the value is computed on every call.
+     *
+     * @param key identifies the value within the scope
+     * @param supplier computes the value, which may be null
+     * @return the value
+     */
+    @SuppressWarnings("unchecked")
+    <T> T scoped(String key, Supplier<T> supplier) {
+        ScopeState state = scopeState;
+        if (state == null) {
+            return supplier.get();
+        }
+        return (T) state.values.computeIfAbsent(key, k -> Optional.ofNullable(supplier.get())).orElse(null);
+    }
+
+    private static final class ScopeState {
+
+        private final ConcurrentMap<CommandKey, CompletableFuture<Result>> results = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Optional<Object>> values = new ConcurrentHashMap<>();
+        private final long deadlineNanos;
+        private volatile boolean deadlineExceeded;
+
+        private ScopeState(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final ScopeState state;
+        private boolean closed;
+
+        private Scope(ScopeState state) {
+            this.state = state;
+        }
+
+        /**
+         * @return true if a command of the scope timed out or was not run because of the deadline
+         */
+        public boolean isDeadlineExceeded() {
+            return state.deadlineExceeded;
+        }
+
+        @Override
+        public void close() {
+            synchronized (scopeLock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (--scopeDepth == 0) {
+                    scopeState = null;
+                }
+            }
+        }
+    }
+
+    private static final class CommandKey {
+
+        private final String[] commandArgs;
+        private final boolean handleQuotes;
+
+        private CommandKey(String[] commandArgs, boolean handleQuotes) {
+            this.commandArgs = commandArgs;
+            this.handleQuotes = handleQuotes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CommandKey)) {
+                return false;
+            }
+            CommandKey other = (CommandKey) o;
+            return handleQuotes == other.handleQuotes && Arrays.equals(commandArgs, other.commandArgs);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(commandArgs) + (handleQuotes ? 1 : 0);
+        }
     }
-}
\ No newline at end of file
+}
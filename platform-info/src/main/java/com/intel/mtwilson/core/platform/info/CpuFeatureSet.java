@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of processor flags (cpuinfo flags such as vmx, smx or aes)
+ * stored as a bitset over the {@link #KNOWN_FLAGS} dictionary, so that
+ * membership checks are O(1) and set operations work a word at a time.
+ *
+ * Every well known flag has a stable bit, which is what {@link #toByteArray()}
+ * encodes. Flags outside that list are kept by name with the set, sorted, and
+ * are encoded by name; nothing is registered globally, so any number of
+ * distinct flags can be parsed.
+ *
+ * {@link #toString()} gives a space separated list like
+ * {@link PlatformInfo#getProcessorFlags()}, but in dictionary order rather
+ * than in the order the kernel printed the flags.
+ */
+public final class CpuFeatureSet {
+
+    /**
+     * Well known x86 flags in the order of the kernel's cpufeatures words.
+     * This list is append-only: the position of a flag is its encoded bit.
+     */
+    static final String[] KNOWN_FLAGS = {
+        // CPUID 0x00000001 EDX
+        "fpu", "vme", "de", "pse", "tsc", "msr", "pae", "mce", "cx8", "apic", "sep", "mtrr", "pge", "mca",
+        "cmov", "pat", "pse36", "pn", "clflush", "dts", "acpi", "mmx", "fxsr", "sse", "sse2", "ss", "ht",
+        "tm", "ia64", "pbe",
+        // CPUID 0x80000001 EDX
+        "syscall", "mp", "nx", "mmxext", "fxsr_opt", "pdpe1gb", "rdtscp", "lm", "3dnowext", "3dnow",
+        // Linux defined
+        "recovery", "longrun", "lrti", "cxmmx", "k8", "k7", "p3", "p4", "constant_tsc", "up", "art",
+        "arch_perfmon", "pebs", "bts", "rep_good", "acc_power", "nopl", "xtopology", "tsc_reliable",
+        "nonstop_tsc", "cpuid", "extd_apicid", "amd_dcm", "aperfmperf", "rapl", "nonstop_tsc_s3",
+        "tsc_known_freq",
+        // CPUID 0x00000001 ECX
+        "pni", "pclmulqdq", "dtes64", "monitor", "ds_cpl", "vmx", "smx", "est", "tm2", "ssse3", "cid",
+        "sdbg", "fma", "cx16", "xtpr", "pdcm", "pcid", "dca", "sse4_1", "sse4_2", "x2apic", "movbe",
+        "popcnt", "tsc_deadline_timer", "aes", "xsave", "osxsave", "avx", "f16c", "rdrand", "hypervisor",
+        // VIA/Cyrix/Centaur
+        "rng", "rng_en", "ace", "ace_en", "ace2", "ace2_en", "phe", "phe_en", "pmm", "pmm_en",
+        // CPUID 0x80000001 ECX
+        "lahf_lm", "cmp_legacy", "svm", "extapic", "cr8_legacy", "abm", "sse4a", "misalignsse",
+        "3dnowprefetch", "osvw", "ibs", "xop", "skinit", "wdt", "lwp", "fma4", "tce", "nodeid_msr", "tbm",
+        "topoext", "perfctr_core", "perfctr_nb", "bpext", "ptsc", "perfctr_llc", "mwaitx",
+        // Auxiliary
+        "ring3mwait", "cpuid_fault", "cpb", "epb", "cat_l3", "cat_l2", "cdp_l3", "invpcid_single",
+        "hw_pstate", "proc_feedback", "sme", "pti", "intel_ppin", "cdp_l2", "ssbd", "mba", "sev", "ibrs",
+        "ibpb", "stibp", "ibrs_enhanced",
+        // Virtualization
+        "tpr_shadow", "vnmi", "flexpriority", "ept", "vpid", "vmmcall", "ept_ad",
+        // CPUID 0x00000007:0 EBX
+        "fsgsbase", "tsc_adjust", "bmi1", "hle", "avx2", "smep", "bmi2", "erms", "invpcid", "rtm", "cqm",
+        "mpx", "rdt_a", "avx512f", "avx512dq", "rdseed", "adx", "smap", "avx512ifma", "clflushopt", "clwb",
+        "intel_pt", "avx512pf", "avx512er", "avx512cd", "sha_ni", "avx512bw", "avx512vl",
+        // CPUID 0x0000000d:1 EAX
+        "xsaveopt", "xsavec", "xgetbv1", "xsaves",
+        // CPUID 0x0000000f / 0x00000010
+        "cqm_llc", "cqm_occup_llc", "cqm_mbm_total", "cqm_mbm_local",
+        // CPUID 0x80000008 EBX
+        "clzero", "irperf", "xsaveerptr", "wbnoinvd", "amd_ibpb", "amd_ibrs", "amd_stibp", "amd_ssbd",
+        "virt_ssbd", "amd_ssb_no",
+        // CPUID 0x00000006 EAX
+        "dtherm", "ida", "arat", "pln", "pts", "hwp", "hwp_notify", "hwp_act_window", "hwp_epp",
+        "hwp_pkg_req",
+        // CPUID 0x8000000a EDX
+        "npt", "lbrv", "svm_lock", "nrip_save", "tsc_scale", "vmcb_clean", "flushbyasid",
+        "decodeassists", "pausefilter", "pfthreshold", "avic", "v_vmsave_vmload", "vgif",
+        // CPUID 0x00000007:0 ECX
+        "avx512vbmi", "umip", "pku", "ospke", "waitpkg", "avx512_vbmi2", "gfni", "vaes", "vpclmulqdq",
+        "avx512_vnni", "avx512_bitalg", "tme", "avx512_vpopcntdq", "la57", "rdpid", "cldemote",
+        "movdiri", "movdir64b", "sgx_lc",
+        // CPUID 0x80000007 EBX
+        "overflow_recov", "succor", "smca",
+        // CPUID 0x00000007:0 EDX
+        "avx512_4vnniw", "avx512_4fmaps", "md_clear", "tsx_force_abort", "pconfig", "arch_capabilities",
+        "flush_l1d", "spec_ctrl", "intel_stibp", "spec_ctrl_ssbd",
+        // Later additions
+        "sgx", "ssse3_slow", "serialize", "tsxldtrk", "amx_bf16", "amx_tile", "amx_int8", "avx512_fp16",
+        "avx_vnni", "avx512_bf16", "split_lock_detect", "fsrm", "hybrid_cpu", "arch_lbr", "ibt",
+        "user_shstk", "enqcmd", "uintr", "avx512_vp2intersect", "xfd", "tdx_host_platform"
+    };
+
+    private static final int ENCODING_VERSION = 1;
+    private static final int KNOWN_WORDS = (KNOWN_FLAGS.length + 63) >>> 6;
+
+    private static final Map<String, Integer> KNOWN_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KNOWN_FLAGS.length; i++) {
+            KNOWN_INDEX.put(KNOWN_FLAGS[i], i);
+        }
+    }
+
+    private static final String[] NO_FLAGS = new String[0];
+    private static final CpuFeatureSet EMPTY = new CpuFeatureSet(new long[0], NO_FLAGS);
+
+    private final long[] words;
+    /** flags that are not in {@link #KNOWN_FLAGS}, sorted and without duplicates */
+    private final String[] others;
+
+    private CpuFeatureSet(long[] words, String[] others) {
+        this.words = words;
+        this.others = others;
+    }
+
+    /**
+     * @return the position of the flag in {@link #KNOWN_FLAGS}, or -1 for any other flag
+     */
+    static int knownIndex(String flag) {
+        Integer index = KNOWN_INDEX.get(flag);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @param flags processor flags, for example from {@link HostInfoCommand#getProcessorFlags()}
+     * @return the set of the given flags
+     */
+    public static CpuFeatureSet of(String... flags) {
+        long[] words = new long[KNOWN_WORDS];
+        String[] others = null;
+        int count = 0;
+        for (String flag : flags) {
+            if (flag == null || flag.isEmpty()) {
+                continue;
+            }
+            int bit = knownIndex(flag);
+            if (bit >= 0) {
+                words[bit >>> 6] |= 1L << bit;
+            } else {
+                if (others == null) {
+                    others = new String[flags.length];
+                }
+                others[count++] = flag;
+            }
+        }
+        return create(words, sortedUnique(others, count));
+    }
+
+    /**
+     * @param flags space separated flags as returned by {@link PlatformInfo#getProcessorFlags()}
+     * @return the set of the given flags
+     */
+    public static CpuFeatureSet parse(String flags) {
+        if (flags == null) {
+            return EMPTY;
+        }
+        return of(flags.trim().split("\\s+"));
+    }
+
+    private static String[] sortedUnique(String[] flags, int count) {
+        if (count == 0) {
+            return NO_FLAGS;
+        }
+        Arrays.sort(flags, 0, count);
+        int n = 1;
+        for (int i = 1; i < count; i++) {
+            if (!flags[i].equals(flags[n - 1])) {
+                flags[n++] = flags[i];
+            }
+        }
+        return n == flags.length ? flags : Arrays.copyOf(flags, n);
+    }
+
+    private static CpuFeatureSet create(long[] words, String[] others) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        if (length == 0 && others.length == 0) {
+            return EMPTY;
+        }
+        return new CpuFeatureSet(length == words.length ? words : Arrays.copyOf(words, length), others);
+    }
+
+    /**
+     * @param flag a processor flag such as "vmx"
+     * @return true if the flag is in this set
+     */
+    public boolean has(String flag) {
+        int bit = knownIndex(flag);
+        if (bit < 0) {
+            return others.length > 0 && Arrays.binarySearch(others, flag) >= 0;
+        }
+        return (bit >>> 6) < words.length && (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * @return true if every flag of the other set is in this set
+     */
+    public boolean containsAll(CpuFeatureSet other) {
+        if (other.words.length > words.length || other.others.length > others.length) {
+            return false;
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            if ((other.words[i] & ~words[i]) != 0) {
+                return false;
+            }
+        }
+        for (String flag : other.others) {
+            if (Arrays.binarySearch(others, flag) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public CpuFeatureSet union(CpuFeatureSet other) {
+        long[] result = Arrays.copyOf(words, Math.max(words.length, other.words.length));
+        for (int i = 0; i < other.words.length; i++) {
+            result[i] |= other.words[i];
+        }
+        return create(result, merge(others, other.others, true, true, true));
+    }
+
+    public CpuFeatureSet intersection(CpuFeatureSet other) {
+        long[] result = Arrays.copyOf(words, Math.min(words.length, other.words.length));
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= other.words[i];
+        }
+        return create(result, merge(others, other.others, false, true, false));
+    }
+
+    /**
+     * @return the flags of this set that are not in the other set
+     */
+    public CpuFeatureSet difference(CpuFeatureSet other) {
+        long[] result = words.clone();
+        for (int i = 0; i < Math.min(result.length, other.words.length); i++) {
+            result[i] &= ~other.words[i];
+        }
+        return create(result, merge(others, other.others, true, false, false));
+    }
+
+    /**
+     * Merges two sorted flag arrays, keeping the flags that are only in the
+     * first, in both or only in the second array as selected.
+     */
+    private static String[] merge(String[] a, String[] b, boolean onlyA, boolean both, boolean onlyB) {
+        if (a.length == 0 && b.length == 0) {
+            return NO_FLAGS;
+        }
+        String[] result = new String[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int order = i == a.length ? 1 : j == b.length ? -1 : a[i].compareTo(b[j]);
+            if (order < 0) {
+                if (onlyA) {
+                    result[n++] = a[i];
+                }
+                i++;
+            } else if (order > 0) {
+                if (onlyB) {
+                    result[n++] = b[j];
+                }
+                j++;
+            } else {
+                if (both) {
+                    result[n++] = a[i];
+                }
+                i++;
+                j++;
+            }
+        }
+        return n == 0 ? NO_FLAGS : Arrays.copyOf(result, n);
+    }
+
+    public int size() {
+        int size = others.length;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0 && others.length == 0;
+    }
+
+    /**
+     * @return the well known flags in {@link #KNOWN_FLAGS} order, then the other flags sorted by name
+     */
+    public String[] toArray() {
+        String[] flags = new String[size()];
+        int n = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                flags[n++] = KNOWN_FLAGS[(i << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+        System.arraycopy(others, 0, flags, n, others.length);
+        return flags;
+    }
+
+    /**
+     * Encodes the set: a version byte, the count and little-endian words of
+     * the bits of the well known flags, then the number and UTF-8 names of the
+     * other flags. The encoding does not depend on the process that wrote it.
+     *
+     * @return the compact encoding
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + words.length * 8);
+        out.write(ENCODING_VERSION);
+        writeVarint(out, words.length);
+        for (long word : words) {
+            for (int b = 0; b < 8; b++) {
+                out.write((int) (word >>> (b * 8)));
+            }
+        }
+        writeVarint(out, others.length);
+        for (String flag : others) {
+            byte[] name = flag.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, name.length);
+            out.write(name, 0, name.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param encoded bytes produced by {@link #toByteArray()}
+     * @return the decoded set
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static CpuFeatureSet fromByteArray(byte[] encoded) {
+        return read(ByteBuffer.wrap(encoded));
+    }
+
+    /**
+     * Decodes a set written by {@link #toByteArray()} from the current
+     * position of the buffer and advances the position past it.
+     */
+    static CpuFeatureSet read(ByteBuffer buffer) {
+        try {
+            int version = buffer.get() & 0xff;
+            if (version != ENCODING_VERSION) {
+                throw new IllegalArgumentException("Unsupported processor flags encoding " + version);
+            }
+            int count = readVarint(buffer);
+            if (count > KNOWN_WORDS) {
+                throw new IllegalArgumentException("Invalid processor flags encoding");
+            }
+            long[] words = new long[count];
+            for (int i = 0; i < count; i++) {
+                long word = 0;
+                for (int b = 0; b < 8; b++) {
+                    word |= (buffer.get() & 0xffL) << (b * 8);
+                }
+                words[i] = word;
+            }
+            if (count == KNOWN_WORDS && (KNOWN_FLAGS.length & 63) != 0) {
+                words[count - 1] &= (1L << (KNOWN_FLAGS.length & 63)) - 1;
+            }
+            CpuFeatureSet set = create(words, NO_FLAGS);
+            int other = readVarint(buffer);
+            if (other > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid processor flags encoding");
+            }
+            if (other > 0) {
+                String[] flags = new String[other];
+                for (int i = 0; i < other; i++) {
+                    int length = readVarint(buffer);
+                    if (length > buffer.remaining()) {
+                        throw new IllegalArgumentException("Invalid processor flags encoding");
+                    }
+                    byte[] name = new byte[length];
+                    buffer.get(name);
+                    flags[i] = new String(name, StandardCharsets.UTF_8);
+                }
+                set = set.union(of(flags));
+            }
+            return set;
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated processor flags encoding", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid varint in processor flags encoding");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CpuFeatureSet)) {
+            return false;
+        }
+        CpuFeatureSet other = (CpuFeatureSet) o;
+        return Arrays.equals(words, other.words) && Arrays.equals(others, other.others);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(words) + Arrays.hashCode(others);
+    }
+
+    /**
+     * @return the flags of {@link #toArray()} separated by spaces
+     */
+    @Override
+    public String toString() {
+        return String.join(" ", toArray());
+    }
+}
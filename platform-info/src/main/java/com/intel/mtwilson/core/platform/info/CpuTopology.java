@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the CPU topology the kernel exports under /sys/devices/system/cpu,
+ * which is where lscpu gets the socket count from.
+ *
+ * Every online CPU has a topology/physical_package_id file holding the
+ * package (socket) number followed by a newline. Hosts may have hundreds of
+ * CPUs, so the files are read into one reused buffer and parsed as bytes.
+ */
+final class CpuTopology {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CpuTopology.class);
+
+    private CpuTopology() {
+    }
+
+    /**
+     * Counts the distinct physical package ids of the CPUs in the given
+     * directory.
+     *
+     * @param cpus path of /sys/devices/system/cpu
+     * @return the number of sockets, or -1 if the topology is not available,
+     *         cannot be read or does not report package ids
+     */
+    static int countPackages(Path cpus) {
+        if (!Files.isDirectory(cpus)) {
+            return -1;
+        }
+        // package ids are small on most hosts but not guaranteed to be dense
+        Set<Integer> packages = new HashSet<>();
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cpus, "cpu[0-9]*")) {
+            for (Path cpu : entries) {
+                int id;
+                try {
+                    id = readId(cpu.resolve("topology/physical_package_id"), buffer);
+                } catch (NoSuchFileException e) {
+                    continue; // offline CPUs have no topology
+                }
+                if (id < 0) {
+                    return -1;
+                }
+                packages.add(id);
+            }
+        } catch (IOException e) {
+            log.debug("Cannot read the CPU topology from {}: {}", cpus, e.toString());
+            return -1;
+        }
+        return packages.isEmpty() ? -1 : packages.size();
+    }
+
+    /**
+     * @return the decimal value of the file, or -1 if it is negative or not a number
+     */
+    private static int readId(Path file, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // sysfs returns the whole value in one read
+            }
+        }
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < buffer.position(); i++) {
+            int b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > 9) {
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+            } else if (b == '\n' || b == ' ') {
+                break;
+            } else {
+                return -1;
+            }
+        }
+        return digits == 0 ? -1 : value;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Executes the CPUID instruction through the cpuid driver: reading 16 bytes
+ * from the device file of a CPU (/dev/cpu/N/cpuid) at the leaf number as the
+ * offset returns EAX, EBX, ECX and EDX in little-endian order. Requires root
+ * and the cpuid kernel module.
+ */
+final class Cpuid {
+
+    static final int EAX = 0;
+    static final int EBX = 1;
+    static final int ECX = 2;
+    static final int EDX = 3;
+
+    /**
+     * CPUID.01H:ECX.VMX[bit 5], virtual machine extensions
+     */
+    static final int LEAF_1_ECX_VMX = 1 << 5;
+
+    private Cpuid() {
+    }
+
+    /**
+     * @param device path of the cpuid device of one CPU, normally /dev/cpu/0/cpuid
+     * @param leaf the value of EAX when executing CPUID
+     * @return the registers, indexed by {@link #EAX}, {@link #EBX}, {@link #ECX} and {@link #EDX}
+     * @throws IOException if the device cannot be opened or read
+     */
+    static int[] read(Path device, int leaf) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        long offset = leaf & 0xffffffffL;
+        try (FileChannel channel = FileChannel.open(device, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Cannot read CPUID leaf 0x" + Integer.toHexString(leaf) + " from " + device);
+                }
+            }
+        }
+        buffer.flip();
+        return new int[]{buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()};
+    }
+}
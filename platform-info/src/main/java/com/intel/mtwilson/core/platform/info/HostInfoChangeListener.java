@@ -0,0 +1,26 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.util.Set;
+
+/**
+ * Receives the fields of the host information whose values changed while
+ * {@link PlatformInfo} was watching the host.
+ *
+ * @since 1.4.2
+ */
+public interface HostInfoChangeListener {
+
+    /**
+     * Called on the watcher thread after the affected fields were probed
+     * again, only when at least one of them has a new value. The new values
+     * are served from the cache of the PlatformInfo.
+     *
+     * @param platformInfo the instance that detected the change
+     * @param changed the fields whose values changed
+     */
+    void hostInfoChanged(PlatformInfo platformInfo, Set<HostInfoField> changed);
+}
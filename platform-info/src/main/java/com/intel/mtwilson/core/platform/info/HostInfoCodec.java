@@ -0,0 +1,483 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.model.ComponentStatus;
+import com.intel.mtwilson.core.common.model.FeatureStatus;
+import com.intel.mtwilson.core.common.model.HardwareFeature;
+import com.intel.mtwilson.core.common.model.HardwareFeatureDetails;
+import com.intel.mtwilson.core.common.model.HostInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary encoding of the {@link HostInfo} returned by
+ * {@link PlatformInfo#getHostInfo()}, for storing and sending host
+ * information without the size and parsing cost of JSON.
+ *
+ * An encoding starts with a format version byte and a table of the distinct
+ * strings it contains; every value after that is a varint reference into a
+ * fixed list of common values (true, false and the {@link FeatureStatus},
+ * {@link ComponentStatus} and {@link HardwareFeature} names) or into the
+ * string table, so repeated values are stored once. Processor flags are
+ * stored as a bit set over {@link CpuFeatureSet#KNOWN_FLAGS} plus references
+ * to any other flags when the flags string is in {@link CpuFeatureSet}
+ * order, and otherwise as a list of positions in the known flags so that
+ * their order is kept. Integers are unsigned LEB128 varints.
+ *
+ * @since 1.4.2
+ */
+public final class HostInfoCodec {
+
+    private static final int FORMAT_VERSION = 1;
+
+    /*
+        values with a fixed reference; append only, anything else changes the format version
+     */
+    private static final String[] CONSTANTS = {
+            "true",
+            "false",
+            FeatureStatus.ENABLED.getValue(),
+            FeatureStatus.DISABLED.getValue(),
+            FeatureStatus.UNSUPPORTED.getValue(),
+            ComponentStatus.INSTALLED.getValue(),
+            ComponentStatus.NOT_INSTALLED.getValue(),
+            HardwareFeature.TPM.name(),
+            HardwareFeature.TXT.name(),
+            HardwareFeature.SUEFI.name(),
+            HardwareFeature.CBNT.name(),
+    };
+
+    private static final Map<String, Integer> CONSTANT_REFS = new HashMap<>();
+
+    static {
+        for (int i = CONSTANTS.length - 1; i >= 0; i--) {
+            CONSTANT_REFS.put(CONSTANTS[i], i + 1);
+        }
+    }
+
+    private static final int NULL_REF = 0;
+    private static final int FIRST_STRING_REF = CONSTANTS.length + 1;
+
+    private static final int FLAGS_NULL = 0;
+    private static final int FLAGS_LIST = 1;
+    private static final int FLAGS_BITSET = 2;
+
+    private HostInfoCodec() {
+    }
+
+    /**
+     * @param hostInfo the host information
+     * @return the encoded host information
+     */
+    public static byte[] encode(HostInfo hostInfo) {
+        Encoder encoder = new Encoder();
+        encoder.writeRef(hostInfo.getBiosName());
+        encoder.writeRef(hostInfo.getBiosVersion());
+        encoder.writeRef(hostInfo.getOsName());
+        encoder.writeRef(hostInfo.getOsVersion());
+        encoder.writeRef(hostInfo.getVmmName());
+        encoder.writeRef(hostInfo.getVmmVersion());
+        encoder.writeRef(hostInfo.getProcessorInfo());
+        encoder.writeRef(hostInfo.getHardwareUuid());
+        encoder.writeRef(hostInfo.getTpmVersion());
+        encoder.writeRef(hostInfo.getTxtEnabled());
+        encoder.writeRef(hostInfo.getTpmEnabled());
+        encoder.writeRef(hostInfo.getIsDockerEnv());
+        encoder.writeRef(hostInfo.getTbootInstalled());
+        encoder.writeRef(hostInfo.getNoOfSockets());
+        encoder.writeRef(hostInfo.getHostName());
+
+        String flags = hostInfo.getProcessorFlags();
+        if (flags == null) {
+            encoder.body.write(FLAGS_NULL);
+        } else {
+            String[] list = flags.isEmpty() ? new String[0] : flags.split(" ", -1);
+            long[] words = flagBits(list);
+            if (words != null) {
+                encoder.body.write(FLAGS_BITSET);
+                writeVarint(encoder.body, words.length);
+                for (long word : words) {
+                    for (int b = 0; b < 8; b++) {
+                        encoder.body.write((int) (word >>> (b * 8)));
+                    }
+                }
+                int known = 0;
+                for (long word : words) {
+                    known += Long.bitCount(word);
+                }
+                writeVarint(encoder.body, list.length - known);
+                for (int i = known; i < list.length; i++) {
+                    encoder.writeRef(list[i]);
+                }
+            } else {
+                // kernels list the flags in their own order, keep it with one varint per flag
+                encoder.body.write(FLAGS_LIST);
+                writeVarint(encoder.body, list.length);
+                for (String flag : list) {
+                    int index = CpuFeatureSet.knownIndex(flag);
+                    writeVarint(encoder.body, index + 1);
+                    if (index < 0) {
+                        encoder.writeRef(flag);
+                    }
+                }
+            }
+        }
+
+        Map<HardwareFeature, HardwareFeatureDetails> hardwareFeatures = hostInfo.getHardwareFeatures();
+        encoder.writeCount(hardwareFeatures == null ? -1 : hardwareFeatures.size());
+        if (hardwareFeatures != null) {
+            for (Map.Entry<HardwareFeature, HardwareFeatureDetails> feature : hardwareFeatures.entrySet()) {
+                encoder.writeRef(feature.getKey().name());
+                HardwareFeatureDetails details = feature.getValue();
+                encoder.body.write(details == null ? 0 : details.getEnabled() ? 2 : 1);
+                if (details != null) {
+                    Map<String, String> meta = details.getMeta();
+                    encoder.writeCount(meta == null ? -1 : meta.size());
+                    if (meta != null) {
+                        for (Map.Entry<String, String> entry : meta.entrySet()) {
+                            encoder.writeRef(entry.getKey());
+                            encoder.writeRef(entry.getValue());
+                        }
+                    }
+                }
+            }
+        }
+
+        Set<String> installedComponents = hostInfo.getInstalledComponents();
+        encoder.writeCount(installedComponents == null ? -1 : installedComponents.size());
+        if (installedComponents != null) {
+            for (String component : installedComponents) {
+                encoder.writeRef(component);
+            }
+        }
+        return encoder.toByteArray();
+    }
+
+    /**
+     * @param encoded bytes produced by {@link #encode(HostInfo)}
+     * @return the decoded host information
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static HostInfo decode(byte[] encoded) {
+        return decode(ByteBuffer.wrap(encoded));
+    }
+
+    /**
+     * Decodes host information from the current position of the buffer and
+     * advances the position past it, so several encodings can be read from
+     * one buffer. Strings are decoded straight from the buffer, without
+     * copying the encoding first.
+     *
+     * @param buffer buffer holding an encoding produced by {@link #encode(HostInfo)}
+     * @return the decoded host information
+     * @throws IllegalArgumentException if the buffer does not hold a valid encoding
+     */
+    public static HostInfo decode(ByteBuffer buffer) {
+        try {
+            int version = buffer.get() & 0xff;
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported host information encoding " + version);
+            }
+            String[] strings = new String[readCount(buffer)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+
+            HostInfo hostInfo = new HostInfo();
+            hostInfo.setBiosName(readRef(buffer, strings));
+            hostInfo.setBiosVersion(readRef(buffer, strings));
+            hostInfo.setOsName(readRef(buffer, strings));
+            hostInfo.setOsVersion(readRef(buffer, strings));
+            hostInfo.setVmmName(readRef(buffer, strings));
+            hostInfo.setVmmVersion(readRef(buffer, strings));
+            hostInfo.setProcessorInfo(readRef(buffer, strings));
+            hostInfo.setHardwareUuid(readRef(buffer, strings));
+            hostInfo.setTpmVersion(readRef(buffer, strings));
+            hostInfo.setTxtEnabled(readRef(buffer, strings));
+            hostInfo.setTpmEnabled(readRef(buffer, strings));
+            hostInfo.setIsDockerEnv(readRef(buffer, strings));
+            hostInfo.setTbootInstalled(readRef(buffer, strings));
+            hostInfo.setNoOfSockets(readRef(buffer, strings));
+            hostInfo.setHostName(readRef(buffer, strings));
+
+            int flags = buffer.get();
+            if (flags == FLAGS_BITSET) {
+                hostInfo.setProcessorFlags(readFlagBits(buffer, strings));
+            } else if (flags == FLAGS_LIST) {
+                hostInfo.setProcessorFlags(readFlagList(buffer, strings));
+            } else if (flags != FLAGS_NULL) {
+                throw new IllegalArgumentException("Invalid processor flags in host information encoding");
+            }
+
+            int features = readNullableCount(buffer);
+            if (features >= 0) {
+                Map<HardwareFeature, HardwareFeatureDetails> hardwareFeatures = new HashMap<>();
+                for (int i = 0; i < features; i++) {
+                    HardwareFeature feature = readHardwareFeature(buffer, strings);
+                    int enabled = buffer.get();
+                    HardwareFeatureDetails details = null;
+                    if (enabled != 0) {
+                        details = new HardwareFeatureDetails();
+                        details.setEnabled(enabled == 2);
+                        int entries = readNullableCount(buffer);
+                        if (entries >= 0) {
+                            Map<String, String> meta = new HashMap<>();
+                            for (int j = 0; j < entries; j++) {
+                                meta.put(readRef(buffer, strings), readRef(buffer, strings));
+                            }
+                            details.setMeta(meta);
+                        }
+                    }
+                    hardwareFeatures.put(feature, details);
+                }
+                hostInfo.setHardwareFeatures(hardwareFeatures);
+            }
+
+            int components = readNullableCount(buffer);
+            if (components >= 0) {
+                Set<String> installedComponents = new HashSet<>();
+                for (int i = 0; i < components; i++) {
+                    installedComponents.add(readRef(buffer, strings));
+                }
+                hostInfo.setInstalledComponents(installedComponents);
+            }
+            return hostInfo;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated host information encoding", e);
+        }
+    }
+
+    /**
+     * Collects the distinct strings while the values are written, since the
+     * string table precedes them in the encoding.
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        private void writeRef(String value) {
+            int ref;
+            if (value == null) {
+                ref = NULL_REF;
+            } else {
+                Integer constant = CONSTANT_REFS.get(value);
+                ref = constant != null ? constant : FIRST_STRING_REF + strings.computeIfAbsent(value, s -> strings.size());
+            }
+            writeVarint(body, ref);
+        }
+
+        /*
+            counts of nullable collections are stored plus one, 0 is null
+         */
+        private void writeCount(int count) {
+            writeVarint(body, count + 1);
+        }
+
+        private byte[] toByteArray() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 16 * strings.size() + 2);
+            out.write(FORMAT_VERSION);
+            writeVarint(out, strings.size());
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+            byte[] encoded = body.toByteArray();
+            out.write(encoded, 0, encoded.length);
+            return out.toByteArray();
+        }
+    }
+
+    private static String readRef(ByteBuffer buffer, String[] strings) {
+        int ref = readVarint(buffer);
+        if (ref == NULL_REF) {
+            return null;
+        } else if (ref < FIRST_STRING_REF) {
+            return CONSTANTS[ref - 1];
+        } else if (ref - FIRST_STRING_REF < strings.length) {
+            return strings[ref - FIRST_STRING_REF];
+        }
+        throw new IllegalArgumentException("Invalid string reference in host information encoding");
+    }
+
+    private static HardwareFeature readHardwareFeature(ByteBuffer buffer, String[] strings) {
+        String name = readRef(buffer, strings);
+        if (name != null) {
+            try {
+                return HardwareFeature.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown hardware feature " + name + " in host information encoding", e);
+            }
+        }
+        throw new IllegalArgumentException("Invalid hardware feature in host information encoding");
+    }
+
+    /**
+     * Returns the bits of the well known flags if the list is in
+     * {@link CpuFeatureSet} order: the well known flags by their position in
+     * {@link CpuFeatureSet#KNOWN_FLAGS}, then the other flags sorted by name,
+     * each once.
+     *
+     * @return the bits without trailing zero words, or null if the list is in any other order
+     */
+    private static long[] flagBits(String[] list) {
+        long[] words = new long[(CpuFeatureSet.KNOWN_FLAGS.length + 63) >>> 6];
+        int last = -1;
+        int length = 0;
+        int i = 0;
+        for (; i < list.length; i++) {
+            int index = CpuFeatureSet.knownIndex(list[i]);
+            if (index < 0) {
+                break;
+            }
+            if (index <= last) {
+                return null;
+            }
+            words[index >>> 6] |= 1L << index;
+            last = index;
+            length = (index >>> 6) + 1;
+        }
+        for (int first = i; i < list.length; i++) {
+            if (list[i].isEmpty() || CpuFeatureSet.knownIndex(list[i]) >= 0
+                    || (i > first && list[i].compareTo(list[i - 1]) <= 0)) {
+                return null;
+            }
+        }
+        return length == words.length ? words : Arrays.copyOf(words, length);
+    }
+
+    private static String readFlagBits(ByteBuffer buffer, String[] strings) {
+        int count = readCount(buffer);
+        if (count > (CpuFeatureSet.KNOWN_FLAGS.length + 63) >>> 6) {
+            throw new IllegalArgumentException("Invalid processor flags in host information encoding");
+        }
+        StringBuilder flags = new StringBuilder(512);
+        for (int i = 0; i < count; i++) {
+            long word = 0;
+            for (int b = 0; b < 8; b++) {
+                word |= (buffer.get() & 0xffL) << (b * 8);
+            }
+            while (word != 0) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(word);
+                if (index >= CpuFeatureSet.KNOWN_FLAGS.length) {
+                    throw new IllegalArgumentException("Invalid processor flag in host information encoding");
+                }
+                appendFlag(flags, CpuFeatureSet.KNOWN_FLAGS[index]);
+                word &= word - 1;
+            }
+        }
+        int others = readCount(buffer);
+        for (int i = 0; i < others; i++) {
+            appendFlag(flags, readFlagRef(buffer, strings));
+        }
+        return flags.toString();
+    }
+
+    private static void appendFlag(StringBuilder flags, String flag) {
+        if (flags.length() > 0) {
+            flags.append(' ');
+        }
+        flags.append(flag);
+    }
+
+    private static String readFlagRef(ByteBuffer buffer, String[] strings) {
+        String flag = readRef(buffer, strings);
+        if (flag == null) {
+            throw new IllegalArgumentException("Invalid processor flag in host information encoding");
+        }
+        return flag;
+    }
+
+    private static String readFlagList(ByteBuffer buffer, String[] strings) {
+        int count = readCount(buffer);
+        StringBuilder flags = new StringBuilder(count * 8);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                flags.append(' ');
+            }
+            int known = readVarint(buffer);
+            if (known == 0) {
+                flags.append(readFlagRef(buffer, strings));
+            } else if (known <= CpuFeatureSet.KNOWN_FLAGS.length) {
+                flags.append(CpuFeatureSet.KNOWN_FLAGS[known - 1]);
+            } else {
+                throw new IllegalArgumentException("Invalid processor flag in host information encoding");
+            }
+        }
+        return flags.toString();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readCount(buffer);
+        String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.limit(bytes.position() + length);
+            string = StandardCharsets.UTF_8.decode(bytes).toString();
+        }
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    /**
+     * Reads a count or length and checks it against the remaining bytes, so a
+     * corrupt encoding cannot make the decoder allocate a huge array.
+     */
+    private static int readCount(ByteBuffer buffer) {
+        int count = readVarint(buffer);
+        if (count > buffer.remaining()) {
+            throw new IllegalArgumentException("Truncated host information encoding");
+        }
+        return count;
+    }
+
+    /**
+     * Reads the count of a nullable collection, stored plus one.
+     *
+     * @return the count, or -1 for null
+     */
+    private static int readNullableCount(ByteBuffer buffer) {
+        int count = readVarint(buffer) - 1;
+        if (count > buffer.remaining()) {
+            throw new IllegalArgumentException("Truncated host information encoding");
+        }
+        return count;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid varint in host information encoding");
+    }
+}
@@ -7,6 +7,9 @@ package com.intel.mtwilson.core.platform.info;
 import com.intel.mtwilson.core.common.PlatformInfoException;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -18,6 +21,16 @@ import java.util.Set;
  */
 public interface HostInfoCommand {
 
+    /**
+     * Returns the runner used to execute the platform commands, so that
+     * {@link PlatformInfo} can share command results within a collection.
+     *
+     * @return the runner, or null if the implementation runs no commands through one
+     */
+    default CommandLineRunner getRunner() {
+        return null;
+    }
+
     String getOsName() throws PlatformInfoException, IOException;
 
     String getOsVersion() throws PlatformInfoException, IOException;
@@ -65,4 +78,20 @@ public interface HostInfoCommand {
     Set<String> getInstalledComponents() throws PlatformInfoException, IOException;
 
     boolean isDockerEnv() throws PlatformInfoException, IOException;
+
+    /**
+     * Returns the files and directories whose changes affect the host
+     * information, with the fields each one backs.
+     */
+    default Map<Path, Set<HostInfoField>> getWatchedPaths() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns an id that changes with every boot of the host, or null when
+     * it is not known.
+     */
+    default String getBootId() {
+        return null;
+    }
 }
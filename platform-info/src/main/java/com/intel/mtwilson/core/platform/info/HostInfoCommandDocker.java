@@ -4,6 +4,7 @@
  */
 package com.intel.mtwilson.core.platform.info;
 
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.stream.Stream;
 
@@ -12,6 +13,22 @@ public class HostInfoCommandDocker extends HostInfoCommandLinux {
     public HostInfoCommandDocker() {
         super();
         getRunner().setHook(HostInfoCommandDocker::commandLineHook);
+        /*
+            read files of the host from the mount path instead of going through chroot,
+            for example /etc/os-release becomes /mount/path/etc/os-release
+         */
+        String hostMountPath = System.getenv("TRUSTAGENT_DOCKER_HOST_MOUNT");
+        if (hostMountPath != null && !hostMountPath.isEmpty()) {
+            setHostRoot(Paths.get(hostMountPath));
+        }
+    }
+
+    /*
+        the shell session is chrooted once, so its commands are not prefixed by the hook
+     */
+    @Override
+    protected String[] getShellCommand() {
+        return commandLineHook(super.getShellCommand());
     }
 
     /*
@@ -14,9 +14,16 @@ import com.intel.mtwilson.core.common.model.HostComponents;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 public class HostInfoCommandLinux implements HostInfoCommand {
@@ -29,6 +36,57 @@ public class HostInfoCommandLinux implements HostInfoCommand {
         return runner;
     }
 
+    public void setRunner(CommandLineRunner runner) {
+        this.runner = runner;
+    }
+
+    /**
+     * Runs the commands of this instance in one long-lived shell instead of
+     * forking a process per command.
+     *
+     * @return the new runner, to be closed when this instance is no longer used
+     */
+    public ShellSessionRunner useShellSession() {
+        ShellSessionRunner session = new ShellSessionRunner(getShellCommand());
+        setRunner(session);
+        return session;
+    }
+
+    /**
+     * @return the command line of the shell used by {@link #useShellSession()}
+     */
+    protected String[] getShellCommand() {
+        return new String[] { "/bin/sh" };
+    }
+
+    private Path hostRoot = Paths.get("/");
+
+    public Path getHostRoot() {
+        return hostRoot;
+    }
+
+    /**
+     * Sets the directory the host's root filesystem is visible at, for the
+     * probes that read procfs, sysfs, device or configuration files directly
+     * instead of running a command. Defaults to /.
+     *
+     * @param hostRoot the root of the host filesystem, for example the mount
+     *                 of the host inside a container or a fixture directory
+     */
+    public void setHostRoot(Path hostRoot) {
+        this.hostRoot = hostRoot;
+    }
+
+    /**
+     * Resolves an absolute path on the host against the host root.
+     *
+     * @param path absolute path, for example /proc/cpuinfo
+     * @return the path to read
+     */
+    protected Path hostPath(String path) {
+        return hostRoot.resolve(path.startsWith("/") ? path.substring(1) : path);
+    }
+
     public String getOsName() throws IOException, PlatformInfoException {
         Pair<String, String> osNameAndVersion = getOsNameAndVersion();
         return osNameAndVersion.getLeft();
@@ -40,6 +98,15 @@ public class HostInfoCommandLinux implements HostInfoCommand {
     }
 
     private Pair<String, String> getOsNameAndVersion() throws PlatformInfoException, IOException {
+        OsRelease osRelease = OsRelease.read(hostPath("/etc/os-release"), hostPath("/usr/lib/os-release"));
+        if (osRelease != null && osRelease.getDistributorId() != null) {
+            String osName = osRelease.getDistributorId();
+            String osVersion = osRelease.getVersionId() == null ? "" : osRelease.getVersionId();
+            log.debug("OS Name from os-release: " + osName);
+            log.debug("OS Version from os-release: " + osVersion);
+            return new ImmutablePair<>(osName, osVersion);
+        }
+
          /*
          Sample response of 'lsb_release -a'
          No LSB modules are available.
@@ -53,21 +120,13 @@ public class HostInfoCommandLinux implements HostInfoCommand {
         Result result = getRunner().executeCommand("lsb_release", "-a");
         String osName = "";
         String osVersion = "";
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            for (String str : resultArray) {
-                String[] parts = str.split(":");
-
-                if (parts != null && parts.length > 1) { //Get OS Name
-                    if (parts[0].trim().equalsIgnoreCase("Distributor ID")) {
-                        if (parts[1] != null) {
-                            osName = parts[1].trim();
-                        }
-                    } else if (parts[0].trim().equalsIgnoreCase("Release")) { //Get OS Version
-                        if (parts[1] != null) {
-                            osVersion = parts[1].trim();
-                        }
-                    }
+        OutputScanner output = OutputScanner.stdout(result);
+        if (output.hasOutput()) {
+            while (output.nextLine()) {
+                if (output.keyEquals(':', "Distributor ID")) { //Get OS Name
+                    osName = output.value(':').toString();
+                } else if (output.keyEquals(':', "Release")) { //Get OS Version
+                    osVersion = output.value(':').toString();
                 }
             }
             log.debug("OS Name: " + osName);
@@ -78,30 +137,91 @@ public class HostInfoCommandLinux implements HostInfoCommand {
         return new ImmutablePair<>(osName, osVersion);
     }
 
+    /**
+     * Reads the output of the command up to its first line that is not a
+     * comment, as printed by dmidecode, and stops the command there.
+     *
+     * @return the line, an empty string if there is none, or null if the command gave no result
+     */
+    private String streamFirstLine(String baseCmd, String... args) throws PlatformInfoException, IOException {
+        String[] firstLine = { "" };
+        Result result = getRunner().streamCommand(line -> {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("#")) {
+                return true;
+            }
+            firstLine[0] = trimmed;
+            return false;
+        }, baseCmd, args);
+        return result == null ? null : firstLine[0];
+    }
+
+    /**
+     * Reads the output of the command up to the first "key: value" line with
+     * the key and stops the command there.
+     *
+     * @return the value, or null if no line has the key
+     */
+    private String streamValue(String key, String baseCmd, String... args) throws PlatformInfoException, IOException {
+        String[] value = new String[1];
+        getRunner().streamCommand(line -> {
+            OutputScanner output = new OutputScanner(line);
+            if (output.nextLine() && output.keyEquals(':', key)) {
+                value[0] = output.value(':').toString();
+                return false;
+            }
+            return true;
+        }, baseCmd, args);
+        return value[0];
+    }
+
+    private SysfsDmi sysfsDmi() {
+        return new SysfsDmi(hostPath("/sys/class/dmi/id"));
+    }
+
+    /**
+     * Parses the SMBIOS table exported by the kernel, once per command scope
+     * of the runner, or returns null when it cannot be read so that the
+     * caller falls back to dmidecode.
+     */
+    SmbiosTable smbiosTable() {
+        Path tables = hostPath("/sys/firmware/dmi/tables");
+        CommandLineRunner runner = getRunner();
+        return runner == null ? readSmbiosTable(tables) : runner.scoped("smbios " + tables, () -> readSmbiosTable(tables));
+    }
+
+    private SmbiosTable readSmbiosTable(Path tables) {
+        try {
+            return SmbiosTable.read(tables);
+        } catch (IOException e) {
+            log.debug("Cannot read the SMBIOS table from {}: {}", tables, e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public String getBiosName() throws PlatformInfoException, IOException {
-        String biosName = "";
+        String biosName = sysfsDmi().read("bios_vendor");
+        if (biosName != null) {
+            log.debug("BIOS Name from /sys/class/dmi/id/bios_vendor: " + biosName);
+            return biosName;
+        }
+        SmbiosTable smbios = smbiosTable();
+        if (smbios != null && smbios.getBiosVendor() != null) {
+            log.debug("BIOS Name from the SMBIOS table: " + smbios.getBiosVendor());
+            return smbios.getBiosVendor();
+        }
+        biosName = "";
         log.debug("Getting BIOS Name using dmidecode -s bios-vendor");
-        Result dmidecodeResult = getRunner().executeCommand("dmidecode", "-s", "bios-vendor");
+        String firstLine = streamFirstLine("dmidecode", "-s", "bios-vendor");
         /*
          Sample response of 'dmidecode -s bios-vendor'
          Intel Corp.
          */
-        if (dmidecodeResult == null || dmidecodeResult.getStdout() == null) {
+        if (firstLine == null) {
             throw new PlatformInfoException(ErrorCode.COMMAND_ERROR, "Command \"dmidecode -s bios-vendor\" gave a null response");
         }
-
-        List<String> resultList = Arrays.asList(dmidecodeResult.getStdout().split("\n"));
-        if (resultList != null && resultList.size() > 0) {
-            for (String data : resultList) {
-                if (data.trim().startsWith("#")) // ignore the comments
-                {
-                    continue;
-                }
-                biosName = data.trim();
-                break;
-            }
-        }
+        biosName = firstLine;
         log.debug("BIOS Name: " + biosName);
 
         return biosName;
@@ -110,28 +230,27 @@ public class HostInfoCommandLinux implements HostInfoCommand {
     @Override
     public String getBiosVersion() throws IOException, PlatformInfoException {
         // Get BIOS Version
-        String biosVersion = "";
+        String biosVersion = sysfsDmi().read("bios_version");
+        if (biosVersion != null) {
+            log.debug("BIOS Version from /sys/class/dmi/id/bios_version: " + biosVersion);
+            return biosVersion;
+        }
+        SmbiosTable smbios = smbiosTable();
+        if (smbios != null && smbios.getBiosVersion() != null) {
+            log.debug("BIOS Version from the SMBIOS table: " + smbios.getBiosVersion());
+            return smbios.getBiosVersion();
+        }
+        biosVersion = "";
         log.debug("Getting BIOS Version using \"dmidecode -s bios-version\"");
-        Result dmidecodeResult = getRunner().executeCommand("dmidecode", "-s", "bios-version");
+        String firstLine = streamFirstLine("dmidecode", "-s", "bios-version");
         /*
          Sample response of "dmidecode -s bios-version"
          S5500.86B.01.00.0060.090920111354
          */
-        if (dmidecodeResult == null || dmidecodeResult.getStdout() == null) {
+        if (firstLine == null) {
             throw new IOException("Command \"dmidecode -s bios-version\" gave a null response");
         }
-
-        List<String> resultList = Arrays.asList(dmidecodeResult.getStdout().split("\n"));
-        if (resultList != null && resultList.size() > 0) {
-            for (String data : resultList) {
-                if (data.trim().startsWith("#")) // ignore the comments
-                {
-                    continue;
-                }
-                biosVersion = data.trim();
-                break;
-            }
-        }
+        biosVersion = firstLine;
         log.debug("BIOS Version: " + biosVersion);
 
         return biosVersion;
@@ -157,7 +276,8 @@ public class HostInfoCommandLinux implements HostInfoCommand {
             log.debug("Getting docker version using \"docker -v\"");
             result = getRunner().executeCommand("docker", "-v");
 
-            if (result == null || result.getExitCode() != 0 || result.getStdout() == null || result.getStdout().isEmpty()) {
+            OutputScanner output = OutputScanner.stdout(result);
+            if (result == null || result.getExitCode() != 0 || !output.hasOutput() || !output.nextLine()) {
                 // If Docker is not installed the exitcode is 127
                 log.info("Error running command docker version");
                 log.info("Docker might not be installed or the docker version command returned a null response. Will check for the hypervisor installed.");
@@ -166,25 +286,18 @@ public class HostInfoCommandLinux implements HostInfoCommand {
                  Sample response of 'docker -v'
                  Docker version 1.9.1, build a34a1d5
                  */
-                String cmdOutput = result.getStdout();
-                log.debug("getVmmAndVersion: output of docker -v command is {}.", cmdOutput);
-                String[] resultArray = cmdOutput.split("\n");
-                if (resultArray.length > 0) {
-                    if (resultArray[0].startsWith("Docker")) {
-                        String[] versionInfo = resultArray[0].split(" ");
-                        if (versionInfo[0] != null) {
-                            vmmName = versionInfo[0];
-                        }
-                        if (versionInfo[2] != null) {
-                            vmmVersion = versionInfo[2].substring(0, versionInfo[2].length() - 1); // remove the comma
-                        }
-                        log.debug("VMM Name: " + vmmName);
-                        log.debug("VMM Version: " + vmmVersion);
-
-                        return new ImmutablePair<>(vmmName, vmmVersion);
+                log.debug("getVmmAndVersion: output of docker -v command is {}.", output.line());
+                if (output.startsWith("Docker")) {
+                    vmmName = output.token(0);
+                    String version = output.token(2);
+                    if (version != null) {
+                        vmmVersion = version.endsWith(",") ? version.substring(0, version.length() - 1) : version; // remove the comma
                     }
+                    log.debug("VMM Name: " + vmmName);
+                    log.debug("VMM Version: " + vmmVersion);
+
+                    return new ImmutablePair<>(vmmName, vmmVersion);
                 }
-                log.debug("command stdout: {}", result.getStdout());
             }
         }
         catch (PlatformInfoException | IOException ex){
@@ -200,17 +313,16 @@ public class HostInfoCommandLinux implements HostInfoCommand {
                 throw new PlatformInfoException(ErrorCode.ERROR, error);
             }
 
-            if (result.getStdout() == null || result.getStdout().isEmpty()) {
+            OutputScanner output = OutputScanner.stdout(result);
+            if (!output.hasOutput() || !output.nextLine()) {
                 log.info("getVmmAndVersion: empty virsh version file, assuming no VMM installed");
                 vmmName = "Host_No_VMM";
                 vmmVersion = "0.0";
                 return new ImmutablePair<>(vmmName, vmmVersion);
             }
 
-            if (result.getStdout() != null) {
-                String cmdOutput = result.getStdout();
-                log.debug("getVmmAndVersion: output of virsh version command is {}.", cmdOutput);
-                String[] resultArray = cmdOutput.split("\n");
+            if (output.hasOutput()) {
+                log.debug("getVmmAndVersion: output of virsh version command is {}.", output);
 
                 //String[] result = "The program 'virsh' is currently not installed. You can install it by typing:\n apt-get install libvirt-bin".split("\n");
                 // For hosts where VMM is not installed, the output of the above command would look something like
@@ -224,32 +336,26 @@ public class HostInfoCommandLinux implements HostInfoCommand {
                 // Running hypervisor: Xen 3.0.0
                 // For cases where VMM is not installed, we would hardcode the VMM name and version as below. This is needed
                 // for supporting hosts without VMM
-                if (resultArray.length > 0) {
-                    String virshCmdSupport = resultArray[0];
-                    if (virshCmdSupport.startsWith("The program 'virsh' is currently not installed")) {
+                if (output.moveTo(0)) {
+                    if (output.startsWith("The program 'virsh' is currently not installed")) {
                         vmmName = "Host_No_Vmm";
                         vmmVersion = "0.0";
                         return new ImmutablePair<>(vmmName, vmmVersion);
                     } else {
-                        for (String str : resultArray) {
-                            String[] parts = str.split(":");
-
-                            if (parts != null && parts.length > 1) {
-                                if (parts[0].trim().equalsIgnoreCase("Running hypervisor")) {
-                                    if (parts[1] != null) {
-                                        String[] subParts = parts[1].trim().split(" ");
-                                        if (subParts[0] != null) {
-                                            vmmName = subParts[0];
-                                        }
-                                        if (subParts[1] != null) {
-                                            vmmVersion = subParts[1];
-                                        }
-                                    }
+                        do {
+                            if (output.keyEquals(':', "Running hypervisor")) {
+                                String name = output.valueToken(':', 0);
+                                String version = output.valueToken(':', 1);
+                                if (name != null) {
+                                    vmmName = name;
+                                }
+                                if (version != null) {
+                                    vmmVersion = version;
                                 }
                             }
-                            log.debug("VMM Name: " + vmmName);
-                            log.debug("VMM Version: " + vmmVersion);
-                        }
+                        } while (output.nextLine());
+                        log.debug("VMM Name: " + vmmName);
+                        log.debug("VMM Version: " + vmmVersion);
                         if (vmmName == null) {
                             vmmName = "Host_No_VMM";
                             vmmVersion = "0.0";
@@ -279,30 +385,28 @@ public class HostInfoCommandLinux implements HostInfoCommand {
      */
     @Override
     public String getProcessorInfo() throws PlatformInfoException, IOException {
+        SmbiosTable smbios = smbiosTable();
+        if (smbios != null && !smbios.getProcessors().isEmpty()) {
+            // the first processor structure is the one dmidecode lists first
+            String processorId = smbios.getProcessors().get(0).getId();
+            log.debug("Processor Information from the SMBIOS table: " + processorId);
+            return processorId;
+        }
         log.debug("Getting Processor Info using \"dmidecode --type processor\"");
-        Result result = getRunner().executeCommand("dmidecode", "--type", "processor");
         String processorInfo = "";
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            /*
-             Sample output would look like below for a 2 CPU system. We will extract the processor info between CPU and the @ sign
-             Processor Information
-             Socket Designation: CPU1
-             Type: Central Processor
-             Family: Xeon
-             Manufacturer: Intel(R) Corporation
-             ID: C2 06 02 00 FF FB EB BF -- This is the CPU ID
-             Signature: Type 0, Family 6, Model 44, Stepping 2
-             */
-            for (String entry : resultArray) {
-                if (entry != null && !entry.isEmpty() && entry.trim().startsWith("ID:")) {
-                    String[] parts = entry.trim().split(":");
-                    if (parts != null && parts.length > 1) {
-                        processorInfo = parts[1].trim();
-                        break;
-                    }
-                }
-            }
+        /*
+         Sample output would look like below for a 2 CPU system. We will extract the processor info between CPU and the @ sign
+         Processor Information
+         Socket Designation: CPU1
+         Type: Central Processor
+         Family: Xeon
+         Manufacturer: Intel(R) Corporation
+         ID: C2 06 02 00 FF FB EB BF -- This is the CPU ID
+         Signature: Type 0, Family 6, Model 44, Stepping 2
+         */
+        String id = streamValue("ID", "dmidecode", "--type", "processor");
+        if (id != null) {
+            processorInfo = id;
             log.debug("Processor Information " + processorInfo);
         } else {
             log.error("Error retrieving the processor information");
@@ -313,95 +417,67 @@ public class HostInfoCommandLinux implements HostInfoCommand {
     @Override
     public String[] getProcessorFlags() throws PlatformInfoException, IOException {
         log.debug("Getting Processor Flags from /proc/cpuinfo");
-        Result result = getRunner().executeCommand("cat", "/proc/cpuinfo");
-        String[] processorFlags = new String[0];
         /*
-         Sample response for 'cat /proc/cpuinfo'
-         Architecture:          x86_64
-         CPU op-mode(s):        32-bit, 64-bit
-         Byte Order:            Little Endian
-         CPU(s):                1
-         On-line CPU(s) list:   0
-         Thread(s) per core:    1
-         Core(s) per socket:    1
-         Socket(s):             1
-         NUMA node(s):          1
-         Vendor ID:             GenuineIntel
-         CPU family:            6
-         Model:                 26
-         Model name:            Intel(R) Xeon(R) CPU E5-2699 v4 @ 2.20GHz
-         Stepping:              4
-         CPU MHz:               2194.917
-         BogoMIPS:              4389.83
-         Hypervisor vendor:     VMware
-         Virtualization type:   full
-         L1d cache:             32K
-         L1i cache:             32K
-         L2 cache:              256K
-         L3 cache:              56320K
-         NUMA node0 CPU(s):     0
-         Flags:                 fpu vme de pse tsc msr pae mce cx8 apic sep
-                                mtrr pge mca cmov pat pse36 clflush dts mmx
-                                fxsr sse sse2 ss syscall nx rdtscp lm
-                                constant_tsc arch_perfmon pebs bts nopl
-                                xtopology tsc_reliable nonstop_tsc aperfmperf
-                                pni ssse3 cx16 sse4_1 sse4_2 x2apic popcnt
-                                tsc_deadline_timer hypervisor lahf_lm epb
-                                tsc_adjust dtherm ida arat pln pts
+         Sample content of '/proc/cpuinfo', one block per logical processor
+         processor       : 0
+         vendor_id       : GenuineIntel
+         cpu family      : 6
+         model           : 26
+         model name      : Intel(R) Xeon(R) CPU           E5649  @ 2.53GHz
+         ...
+         flags           : fpu vme de pse tsc msr pae mce cx8 apic sep
+                           mtrr pge mca cmov pat pse36 clflush dts mmx
+                           ...
          */
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            for (String str : resultArray) {
-                String[] parts = str.split(":");
-
-                if (parts != null && parts.length > 1) { //Get Processor Flags
-                    if (parts[0].trim().equalsIgnoreCase("Flags")) {
-                        if (parts[1] != null) {
-                            processorFlags = parts[1].trim().split(" ");
-                        }
-                    }
-                }
-            }
-            log.debug("Processor flags: " + processorFlags);
-        } else {
+        String[] processorFlags = new String[0];
+        try {
+            processorFlags = ProcCpuInfo.readFlags(hostPath("/proc/cpuinfo"));
+        } catch (IOException e) {
+            // a missing or restricted /proc, as in some containers, must not fail the whole collection
+            log.error("Cannot read the processor flags from /proc/cpuinfo: {}", e.toString());
+        }
+        if (processorFlags.length == 0) {
             log.error("Error retrieving the processor flags");
         }
+        log.debug("Processor flags: " + String.join(" ", processorFlags));
         return processorFlags;
     }
 
     @Override
     public String getHardwareUUID() throws IOException, PlatformInfoException {
-        String hardwareUUID = "";
+        // the kernel prints the UUID in lower case, dmidecode in upper case
+        String hardwareUUID = sysfsDmi().read("product_uuid");
+        if (hardwareUUID != null) {
+            hardwareUUID = hardwareUUID.toUpperCase(Locale.ROOT);
+            log.debug("Context set with host UUID info from /sys/class/dmi/id/product_uuid: " + hardwareUUID);
+            return hardwareUUID;
+        }
+        SmbiosTable smbios = smbiosTable();
+        if (smbios != null && smbios.getSystemUuid() != null) {
+            log.debug("Context set with host UUID info from the SMBIOS table: " + smbios.getSystemUuid());
+            return smbios.getSystemUuid();
+        }
+        hardwareUUID = "";
         log.debug("Getting Hardware UUID using \"dmidecode -s system-uuid\"");
-        Result result = getRunner().executeCommand("dmidecode", "-s", "system-uuid");
+        String firstLine = streamFirstLine("dmidecode", "-s", "system-uuid");
         /*
          Sample response for 'dmidecode -s system-uuid'
          4235D571-8542-FFD3-5BFE-6D9DAC874C84
          */
-        if (result == null || result.getStdout() == null) {
+        if (firstLine == null) {
             throw new PlatformInfoException(ErrorCode.COMMAND_ERROR, "Command \"dmidecode -s system-uuid\" gave a null response");
         }
-
-        List<String> resultList = Arrays.asList(result.getStdout().split("\n"));
-        if (resultList != null && resultList.size() > 0) {
-            for (String data : resultList) {
-                if (data.trim().startsWith("#")) { // ignore the comments
-                    continue;
-                }
-                hardwareUUID = data.trim();
-                break;
-            }
-        }
+        hardwareUUID = firstLine;
         log.debug("Context set with host UUID info: " + hardwareUUID);
         return hardwareUUID;
     }
 
     @Override
     public String getTpmVersion() {
-        if (!new File("/dev/tpm0").exists()) { //No TPM chip present on host
+        if (!Files.exists(hostPath("/dev/tpm0"))) { //No TPM chip present on host
             return "0";
-        } else if (new File("/sys/class/misc/tpm0/device/caps").exists()
-                || new File("/sys/class/tpm/tpm0/device/caps").exists()) {
+        } else if (Files.exists(hostPath("/sys/class/misc/tpm0/device/caps"))
+                || Files.exists(hostPath("/sys/class/tpm/tpm0/device/caps"))) {
             log.debug("TPM Version: 1.2");
             return "1.2";
         } else {
@@ -420,25 +496,24 @@ public class HostInfoCommandLinux implements HostInfoCommand {
          Sample response for 'hostname'
          RedHat
          */
-        if (result == null || result.getStdout() == null) {
+        OutputScanner output = OutputScanner.stdout(result);
+        if (!output.hasOutput()) {
             throw new IOException("Command \"hostname\" gave a null response");
         }
-
-        List<String> resultList = Arrays.asList(result.getStdout().split("\n"));
-        if (resultList != null && resultList.size() > 0) {
-            for (String data : resultList) {
-                hostname = data.trim();
-                break;
-            }
-        }
+        hostname = output.firstLine(false);
         log.debug("Context set with host name info: " + hostname);
         return hostname;
     }
 
     @Override
     public int getNumberOfSockets() throws PlatformInfoException, IOException {
-        int numberOfSockets = 0;
-        Result result = getRunner().executeCommand("lscpu");
+        int numberOfSockets = CpuTopology.countPackages(hostPath("/sys/devices/system/cpu"));
+        if (numberOfSockets > 0) {
+            log.debug("Number of sockets from the sysfs CPU topology: {}", numberOfSockets);
+            return numberOfSockets;
+        }
+
+        numberOfSockets = 0;
         /*
         Sample response for 'number of sockets'
         Architecture:          x86_64
@@ -465,17 +540,9 @@ public class HostInfoCommandLinux implements HostInfoCommand {
         NUMA node0 CPU(s):     0-17,36-53
         NUMA node1 CPU(s):     18-35,54-71
          */
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            for (String entry : resultArray) {
-                if (entry != null && !entry.isEmpty() && entry.trim().startsWith("Socket(s):")) {
-                    String[] parts = entry.trim().split(":");
-                    if (parts != null && parts.length > 1) {
-                        numberOfSockets = Integer.valueOf(parts[1].trim());
-                        break;
-                    }
-                }
-            }
+        String sockets = streamValue("Socket(s)", "lscpu");
+        if (sockets != null) {
+            numberOfSockets = Integer.valueOf(sockets);
             log.debug("Context is being set with number of sockets: " + numberOfSockets);
         } else {
             log.error("Error retrieving the number of sockets");
@@ -489,21 +556,19 @@ public class HostInfoCommandLinux implements HostInfoCommand {
         final String tpmVersion = getTpmVersion();
         try {
             if (tpmVersion.equals("1.2")) {
-                Result result = getRunner().executeCommand("cat", "/sys/class/tpm/tpm0/device/enabled");
-                if (result.getStdout() != null) {
-                    tpmEnabled = result.getStdout().trim().equals("1");
-                    log.debug("The TPM status is : {}", tpmEnabled);
-                }
+                byte[] enabled = Files.readAllBytes(hostPath("/sys/class/tpm/tpm0/device/enabled"));
+                tpmEnabled = new String(enabled, StandardCharsets.US_ASCII).trim().equals("1");
+                log.debug("The TPM status is : {}", tpmEnabled);
             } else if (tpmVersion.equals("2.0")) {
-                if (new File("/sys/class/tpm/tpm0/device/description").exists()) {
+                if (Files.exists(hostPath("/sys/class/tpm/tpm0/device/description"))) {
                     tpmEnabled = true;
-                } else tpmEnabled = new File("/sys/class/tpm/tpm0/device/firmware_node/description").exists();
+                } else tpmEnabled = Files.exists(hostPath("/sys/class/tpm/tpm0/device/firmware_node/description"));
                 log.debug("The TPM status is : {}", tpmEnabled);
                 return tpmEnabled;
             } else {
                 log.error("Error in getting the TPM status");
             }
-        } catch (PlatformInfoException | IOException Ex) {
+        } catch (IOException Ex) {
             log.error("Exception in getting the TPM status - {}", Ex.getMessage());
         }
         return tpmEnabled;
@@ -513,55 +578,77 @@ public class HostInfoCommandLinux implements HostInfoCommand {
     public String getTxtStatus() {
         FeatureStatus txtStatus = FeatureStatus.UNSUPPORTED;
         try {
-            log.debug("Getting TXT Support using 'cpuid -1'");
-            Result result = getRunner().executeCommand("cpuid","-1");
-            String commandResult = result.getStdout();
-
-            if (commandResult != null) {
-                log.debug("Getting TXT status using 'rdmsr 0x3a -f 1:0'");
-                if(commandResult.contains("VMX: virtual machine extensions         = true")) {
-                    result = getRunner().executeCommand("rdmsr", "0x3a", "-f", "1:0");
-                    if(result.getStdout() != null) {
-                        if (result.getStdout().trim().equals("3")) {
-                            txtStatus = FeatureStatus.ENABLED;
-                        } else {
-                            txtStatus = FeatureStatus.DISABLED;
-                        }
+            if (isVmxSupported()) {
+                log.debug("Getting TXT status from MSR 0x3a bits 1:0");
+                Long featureControl = readMsr(Msr.IA32_FEATURE_CONTROL);
+                if (featureControl != null) {
+                    txtStatus = Msr.bits(featureControl, 1, 0) == 3 ? FeatureStatus.ENABLED : FeatureStatus.DISABLED;
+                    log.debug("The TXT status is : {}", txtStatus);
+                    return txtStatus.getValue();
+                }
+                Result result = getRunner().executeCommand("rdmsr", "0x3a", "-f", "1:0");
+                OutputScanner output = OutputScanner.stdout(result);
+                if (output.hasOutput()) {
+                    if (output.contentEquals("3")) {
+                        txtStatus = FeatureStatus.ENABLED;
                     } else {
-                        log.debug("Error during executing 'rdmsr 0x3a' command");
+                        txtStatus = FeatureStatus.DISABLED;
                     }
+                } else {
+                    log.debug("Error during executing 'rdmsr 0x3a' command");
                 }
-                log.debug("The TXT status is : {}", txtStatus);
-
-            } else {
-                log.debug("Error during executing 'cpuid -1' command");
             }
+            log.debug("The TXT status is : {}", txtStatus);
         } catch (PlatformInfoException | IOException Ex) {
-            log.debug("Exception during executing 'cpuid -1' or 'rdmsr 0x3a'command - {}", Ex.getMessage());
+            log.debug("Exception during executing 'rdmsr 0x3a' command - {}", Ex.getMessage());
         }
         return txtStatus.getValue();
     }
 
+    /**
+     * Checks CPUID.01H:ECX.VMX through the cpuid device, which reports the
+     * capability of the processor like the cpuid tool did. Without the cpuid
+     * module the vmx flag from /proc/cpuinfo is used; note that recent kernels
+     * drop that flag when VMX is disabled in the BIOS.
+     */
+    private boolean isVmxSupported() throws PlatformInfoException, IOException {
+        Path device = hostPath("/dev/cpu/0/cpuid");
+        try {
+            int[] leaf1 = Cpuid.read(device, 1);
+            return (leaf1[Cpuid.ECX] & Cpuid.LEAF_1_ECX_VMX) != 0;
+        } catch (IOException e) {
+            log.debug("Cannot read CPUID from {}, using the processor flags: {}", device, e.getMessage());
+        }
+        return Arrays.asList(getProcessorFlags()).contains("vmx");
+    }
+
     @Override
     public String getCbntStatus() {
+        Long sacmInfo = readMsr(Msr.BOOT_GUARD_SACM_INFO);
+        if (sacmInfo != null) {
+            FeatureStatus cbntStatus = getCbntStatus(sacmInfo);
+            log.debug("The CBnT status is : {}", cbntStatus.getValue());
+            return cbntStatus.getValue();
+        }
+
         FeatureStatus cbntStatus = FeatureStatus.UNSUPPORTED;
         try {
             log.debug("Getting CBnT Status using \"rdmsr -xf 32:32 0x13A\"");
             Result result = getRunner().executeCommand("rdmsr", "-f", "32:32", "0x13A");
 
-            if (result.getExitCode() == 0 && result.getStdout() != null) {
-                String output = result.getStdout().trim();
+            OutputScanner output = OutputScanner.stdout(result);
+            if (result.getExitCode() == 0 && output.hasOutput()) {
                 /*
                 The MSR 0x13a [32] bit is set if CBnT is supported
                  */
-                if (Integer.valueOf(output) == 1) {
+                if (output.contentEquals("1")) {
                     /*
                      Boot guard disabled is bootguard with profile 0
                      BTGP0 has MSR[7:4] = 0 (Verify/Measure/FACB) and MSR[0] = 0 (BTG enabled and passed startup ACM)
                      */
-                    Result bitsVMF = getRunner().executeCommand("rdmsr", "-f", "7:4", "0x13A");
-                    Result bitBTGEnabled = getRunner().executeCommand("rdmsr", "-f", "0:0", "0x13A");
-                    if (Integer.valueOf(bitsVMF.getStdout().trim()) == 0 && Integer.valueOf(bitBTGEnabled.getStdout().trim()) == 0){
+                    OutputScanner bitsVMF = OutputScanner.stdout(getRunner().executeCommand("rdmsr", "-f", "7:4", "0x13A"));
+                    OutputScanner bitBTGEnabled = OutputScanner.stdout(getRunner().executeCommand("rdmsr", "-f", "0:0", "0x13A"));
+                    if (bitsVMF.contentEquals("0") && bitBTGEnabled.contentEquals("0")) {
                         cbntStatus = FeatureStatus.DISABLED;
                     } else {
                         cbntStatus = FeatureStatus.ENABLED;
@@ -581,17 +668,18 @@ public class HostInfoCommandLinux implements HostInfoCommand {
     @Override
     public String getCbntProfile() {
         BootGuardProfile cbntProfile = null;
-        if(getCbntStatus().equals(FeatureStatus.ENABLED.getValue())) {
+        Long sacmInfo = readMsr(Msr.BOOT_GUARD_SACM_INFO);
+        if (sacmInfo != null) {
+            if (getCbntStatus(sacmInfo) == FeatureStatus.ENABLED) {
+                cbntProfile = getBootGuardProfile(Long.toHexString(Msr.bits(sacmInfo, 7, 0)));
+                log.debug("The CBNT profile is : {}", cbntProfile);
+            }
+        } else if(getCbntStatus().equals(FeatureStatus.ENABLED.getValue())) {
             try {
                 log.debug("Getting CBNT Profile using \"rdmsr -f 7:0 0x13A\"");
-                Result result = getRunner().executeCommand("rdmsr", "-f", "7:0", "0x13A");
-                if (result.getStdout() != null) {
-                    String output = result.getStdout().trim().toUpperCase();
-                    if (BootGuardProfile.BTGP5.getValue().equals(output)) {
-                        cbntProfile = BootGuardProfile.BTGP5;
-                    } else if (BootGuardProfile.BTGP4.getValue().equals(output)) {
-                        cbntProfile = BootGuardProfile.BTGP4;
-                    }
+                OutputScanner output = OutputScanner.stdout(getRunner().executeCommand("rdmsr", "-f", "7:0", "0x13A"));
+                if (output.hasOutput()) {
+                    cbntProfile = getBootGuardProfile(output.firstLine(false));
                     log.debug("The CBNT profile is : {}", cbntProfile);
                 } else {
                     log.debug("Error during executing 'rdmsr -f 7:0 0x13A' command");
@@ -603,16 +691,73 @@ public class HostInfoCommandLinux implements HostInfoCommand {
         return cbntProfile == null ? "" : cbntProfile.getName();
     }
 
+    /**
+     * Boot guard disabled is bootguard with profile 0: BTGP0 has MSR[7:4] = 0
+     * (Verify/Measure/FACB) and MSR[0] = 0 (BTG enabled and passed startup ACM)
+     *
+     * @param sacmInfo value of MSR 0x13A
+     */
+    private static FeatureStatus getCbntStatus(long sacmInfo) {
+        if (Msr.bits(sacmInfo, 32, 32) != 1) {
+            return FeatureStatus.UNSUPPORTED;
+        }
+        if (Msr.bits(sacmInfo, 7, 4) == 0 && Msr.bits(sacmInfo, 0, 0) == 0) {
+            return FeatureStatus.DISABLED;
+        }
+        return FeatureStatus.ENABLED;
+    }
+
+    /**
+     * @param profile MSR 0x13A bits 7:0 in hex, as printed by rdmsr
+     */
+    private static BootGuardProfile getBootGuardProfile(String profile) {
+        String output = profile.trim().toUpperCase(Locale.ROOT);
+        if (BootGuardProfile.BTGP5.getValue().equals(output)) {
+            return BootGuardProfile.BTGP5;
+        } else if (BootGuardProfile.BTGP4.getValue().equals(output)) {
+            return BootGuardProfile.BTGP4;
+        }
+        return null;
+    }
+
+    private Path msrDevice;
+
+    /**
+     * Sets the msr device read for the TXT and CBnT status instead of
+     * running rdmsr; by default /dev/cpu/0/msr on the host.
+     *
+     * @param msrDevice path of the msr device of one CPU
+     */
+    public void setMsrDevice(Path msrDevice) {
+        this.msrDevice = msrDevice;
+    }
+
+    /**
+     * Reads a register from the msr device, or returns null when the device
+     * is not available (msr module not loaded, not root) so that the caller
+     * falls back to rdmsr.
+     */
+    private Long readMsr(long register) {
+        Path device = msrDevice == null ? hostPath("/dev/cpu/0/msr") : msrDevice;
+        try {
+            return Msr.read(device, register);
+        } catch (IOException e) {
+            log.debug("Cannot read MSR 0x{} from {}: {}", Long.toHexString(register), device, e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public String getSuefiStatus() {
         FeatureStatus suefiEnabled = FeatureStatus.UNSUPPORTED; // EFI variables are not supported on this system
         try {
             log.debug("Getting SUEFI Status using \"bootctl status\"");
             Result result = getRunner().executeCommand("bootctl", "status");
-            if (result.getStdout() != null) {
-                if(result.getStdout().contains("Secure Boot: enabled")) { // SecureBoot enabled
+            OutputScanner output = OutputScanner.stdout(result);
+            if (output.hasOutput()) {
+                if (output.contains("Secure Boot: enabled")) { // SecureBoot enabled
                     suefiEnabled = FeatureStatus.ENABLED;
-                } else if(result.getStdout().contains("Secure Boot: disabled")) { // SecureBoot disabled
+                } else if (output.contains("Secure Boot: disabled")) { // SecureBoot disabled
                     suefiEnabled = FeatureStatus.DISABLED;
                 }
                 else {
@@ -634,7 +779,7 @@ public class HostInfoCommandLinux implements HostInfoCommand {
         try {
             log.debug("Getting Tboot Status using \"txt-stat\"");
             Result result = getRunner().executeCommand("txt-stat");
-            if (result.getStdout() != null) {
+            if (OutputScanner.stdout(result).hasOutput()) {
                 tbootInstalled = ComponentStatus.INSTALLED;
                 log.debug("The Tboot status is : {}", tbootInstalled);
             } else {
@@ -664,14 +809,50 @@ public class HostInfoCommandLinux implements HostInfoCommand {
 
     @Override
     public boolean isDockerEnv() throws PlatformInfoException, IOException {
+        // whether this process runs in a container, so not resolved against the host root
         return new File("/.dockerenv").exists();
     }
 
+    @Override
+    public String getBootId() {
+        try {
+            byte[] bootId = Files.readAllBytes(hostPath("/proc/sys/kernel/random/boot_id"));
+            return new String(bootId, StandardCharsets.US_ASCII).trim();
+        } catch (IOException e) {
+            log.debug("Cannot read the boot id: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+        directories the node component, hypervisor and tboot binaries are installed to
+     */
+    private static final String[] BINARY_DIRECTORIES = { "/usr/local/bin", "/usr/bin", "/usr/sbin" };
+
+    @Override
+    public Map<Path, Set<HostInfoField>> getWatchedPaths() {
+        Map<Path, Set<HostInfoField>> paths = new HashMap<>();
+        paths.put(hostPath("/etc/hostname"), EnumSet.of(HostInfoField.HOST_NAME));
+        paths.put(hostPath("/etc/os-release"), EnumSet.of(HostInfoField.OS_NAME, HostInfoField.OS_VERSION));
+        paths.put(hostPath("/usr/lib/os-release"), EnumSet.of(HostInfoField.OS_NAME, HostInfoField.OS_VERSION));
+        paths.put(hostPath("/sys/class/tpm"), EnumSet.of(HostInfoField.TPM_VERSION, HostInfoField.TPM_ENABLED));
+        paths.put(Paths.get("/.dockerenv"), EnumSet.of(HostInfoField.DOCKER_ENV));
+        for (String directory : BINARY_DIRECTORIES) {
+            for (String component : HostComponents.getValues()) {
+                paths.put(hostPath(directory + "/" + component), EnumSet.of(HostInfoField.INSTALLED_COMPONENTS));
+            }
+            paths.put(hostPath(directory + "/docker"), EnumSet.of(HostInfoField.VMM_NAME, HostInfoField.VMM_VERSION));
+            paths.put(hostPath(directory + "/virsh"), EnumSet.of(HostInfoField.VMM_NAME, HostInfoField.VMM_VERSION));
+            paths.put(hostPath(directory + "/txt-stat"), EnumSet.of(HostInfoField.TBOOT_STATUS));
+        }
+        return paths;
+    }
+
     public boolean isComponentInstalled(String componentName) {
         try{
             Result result = getRunner().executeCommand(componentName, "status");
-            if (result.getExitCode() == 0 && result.getStdout() != null) {
-                String output = result.getStdout().trim();
+            OutputScanner output = OutputScanner.stdout(result);
+            if (result.getExitCode() == 0 && output.hasOutput()) {
                 if (!output.contains("No such file or directory") || !output.contains("command not found")) {
                     return true;
                 }
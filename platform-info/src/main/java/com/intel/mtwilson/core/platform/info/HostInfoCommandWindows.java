@@ -45,11 +45,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic os get caption]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                osName = resultArray[1].replaceAll("\\r", "").trim();
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                osName = output.line();
                 log.debug("OS full Name: " + osName);
             } else {
                 log.error("[wmic os get caption] does not return OS full name");
@@ -70,11 +70,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic os get version]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                osVersion = resultArray[1].replaceAll("\\r|\\s", "");
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                osVersion = output.lineWithoutWhitespace();
                 log.debug("OS version: " + osVersion);
             } else {
                 log.error("[wmic os get version] does not return OS full name");
@@ -94,11 +94,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic bios get manufacturer]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                biosName = resultArray[1].replaceAll("\\r|\\s", "");
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                biosName = output.lineWithoutWhitespace();
                 log.debug("OS full Name: " + biosName);
             } else {
                 log.error("[wmic bios get manufacturer]");
@@ -117,11 +117,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic bios get smbiosbiosversion]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                biosVersion = resultArray[1].replaceAll("\\r|\\s", "");
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                biosVersion = output.lineWithoutWhitespace();
                 log.debug("Bios Version: " + biosVersion);
             } else {
                 log.error("[wmic bios get smbiosbiosversion] does not return Bios Version");
@@ -153,13 +153,12 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic path WIN32_ServerFeature get ID]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());///
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
             String vmmID = "" + 20;
-            for (String str : resultArray) {
-                str = str.replaceAll("\\s+", ""); //remove all whitespace
-                if (str.equals(vmmID)) {
+            while (output.nextLine()) {
+                if (output.lineEquals(vmmID)) {
                     log.debug("Setting Hyper-V");
                     vmmName = "Microsoft Windows Hyper-V";
                     vmmEnabled = true;
@@ -179,11 +178,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic datafile where \"name=\'C:\\\\Windows\\\\System32\\\\vmms.exe\'\" get version]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                vmmVersion = resultArray[1].replaceAll("\\r|\\s", "");
+        output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                vmmVersion = output.lineWithoutWhitespace();
                 log.debug("VMM version: " + vmmVersion);
             } else {
                 log.error("[wmic datafile where \"name=\'C:\\\\Windows\\\\System32\\\\vmms.exe\'\" get version] does not return vmm version");
@@ -204,11 +203,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic cpu get ProcessorId]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                processorInfo = resultArray[1].replaceAll("\\r|\\s", "");
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                processorInfo = output.lineWithoutWhitespace();
                 log.debug("OS full Name: " + processorInfo);
             } else {
                 log.error("[wmic cpu get ProcessorId] does not return ProcessorId");
@@ -238,9 +237,10 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running excutable [cpuid_amd64.exe]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            processorFlags = result.getStdout().split(" ");
+        String stdout = result.getStdout();
+        log.debug("command stdout: {}", stdout);
+        if (stdout != null) {
+            processorFlags = stdout.split(" ");
             log.debug("Processor Flags: " + processorFlags);
         } else {
             log.error("Error executing the [cpuid_amd64.exe]");
@@ -257,11 +257,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic path Win32_ComputerSystemProduct get uuid]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                hardwareUuid = resultArray[1].replaceAll("\\s|\\r", "");
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                hardwareUuid = output.lineWithoutWhitespace();
                 log.debug("Host UUID: " + hardwareUuid);
             } else {
                 log.error("[wmic path Win32_ComputerSystemProduct get uuid] does not return uuid");
@@ -292,21 +292,14 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic /namespace:\\\\root\\CIMV2\\Security\\MicrosoftTpm path Win32_Tpm get /value]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                for (String str : resultArray) {
-                    String[] parts = str.split("=");
-                    if (parts != null && parts.length > 1) {
-                        if (parts[0].trim().equalsIgnoreCase("SpecVersion")) {
-                            if (parts[1] != null) {
-                                tpmVersion = parts[1].split(",")[0];
-                                log.debug("Tpm Version: " + tpmVersion);
-                            }
-                        }
-                    }
-                }
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            String specVersion = output.find('=', "SpecVersion");
+            if (specVersion != null) {
+                int comma = specVersion.indexOf(',');
+                tpmVersion = comma < 0 ? specVersion : specVersion.substring(0, comma);
+                log.debug("Tpm Version: " + tpmVersion);
             } else {
                 log.error("[wmic /namespace:\\\\root\\CIMV2\\Security\\MicrosoftTpm path Win32_Tpm get /value] does not return tpm version");
             }
@@ -329,11 +322,11 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic computersystem get Name]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().split("\n");
-            if (resultArray.length > 1) {
-                hostname = resultArray[1].replaceAll("\\r|\\s", "");
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            if (output.moveTo(1)) {
+                hostname = output.lineWithoutWhitespace();
                 log.debug("Host Name: " + hostname);
             } else {
                 log.error("[wmic computersystem get Name] does not return host name");
@@ -359,12 +352,20 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.error("Error running command [wmic cpu get SocketDesignation]: {}", result.getStderr());
             throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
         }
-        log.debug("command stdout: {}", result.getStdout());
-        if (result.getStdout() != null) {
-            String[] resultArray = result.getStdout().trim().split("\n");
-            if (resultArray.length > 1) {
-                if(resultArray[0].trim().replaceAll("[\u0000-\u001f]", "").contains("SocketDesignation")) {
-                    numberOfSockets = resultArray.length - 1;
+        OutputScanner output = OutputScanner.stdout(result);
+        log.debug("command stdout: {}", output);
+        if (output.hasOutput()) {
+            int lines = 0;
+            boolean header = false;
+            while (output.nextLine()) {
+                if (!output.isBlank()) {
+                    header = header || (lines == 0 && output.lineContains("SocketDesignation"));
+                    lines++;
+                }
+            }
+            if (lines > 1) {
+                if (header) {
+                    numberOfSockets = lines - 1;
                     log.debug("Number of sockets: " + numberOfSockets);
                 }
             } else {
@@ -396,22 +397,16 @@ public class HostInfoCommandWindows implements HostInfoCommand {
                 log.error("Error running command [wmic /namespace:\\\\root\\CIMV2\\Security\\MicrosoftTpm path Win32_Tpm get /value]: {}", result.getStderr());
                 throw new PlatformInfoException(ErrorCode.ERROR, result.getStderr());
             }
-            log.debug("command stdout: {}", result.getStdout());
-            if (result.getStdout() != null) {
-                String[] resultArray = result.getStdout().split("\n");
-                if (resultArray.length > 1) {
-                    for (String str : resultArray) {
-                        String[] parts = str.split("=");
-                        if (parts != null && parts.length > 1) {
-                            if (parts[0].trim().equalsIgnoreCase("IsEnabled_InitialValue")) {
-                                if (parts[1].trim().equals("TRUE")) {
-                                    return true;
-                                } else {
-                                    log.debug("The tpm enabled value is set to false");
-                                    return false;
-                                }
-                            }
-                        }
+            OutputScanner output = OutputScanner.stdout(result);
+            log.debug("command stdout: {}", output);
+            if (output.hasOutput()) {
+                String enabled = output.find('=', "IsEnabled_InitialValue");
+                if (enabled != null) {
+                    if (enabled.equals("TRUE")) {
+                        return true;
+                    } else {
+                        log.debug("The tpm enabled value is set to false");
+                        return false;
                     }
                 } else {
                     log.error("[wmic /namespace:\\\\root\\CIMV2\\Security\\MicrosoftTpm path Win32_Tpm get /value] does not return tpm imfomation");
@@ -463,14 +458,16 @@ public class HostInfoCommandWindows implements HostInfoCommand {
             log.debug("Checking if TXT is supported and enabled...");
             log.debug("Running coreinfo application...");
             Result coreInfoResult = getRunner().executeCommand("coreinfo", "/accepteula");
-            if (coreInfoResult.getStdout() != null) {
-                if (coreInfoResult.getStdout().contains("Supports Intel trusted execution") &&
-                        coreInfoResult.getStdout().contains("Supports Intel hardware-assisted virtualization")) {
+            OutputScanner coreInfo = OutputScanner.stdout(coreInfoResult);
+            if (coreInfo.hasOutput()) {
+                if (coreInfo.contains("Supports Intel trusted execution") &&
+                        coreInfo.contains("Supports Intel hardware-assisted virtualization")) {
                     log.debug("TXT is supported");
                     log.debug("Running systeminfo command...");
                     Result systemInfoResult = getRunner().executeCommand("systeminfo");
-                    if (systemInfoResult.getStdout() != null && (systemInfoResult.getStdout().contains("Virtualization Enabled In Firmware: Yes") ||
-                               systemInfoResult.getStdout().contains("A hypervisor has been detected"))) {
+                    OutputScanner systemInfo = OutputScanner.stdout(systemInfoResult);
+                    if (systemInfo.contains("Virtualization Enabled In Firmware: Yes") ||
+                               systemInfo.contains("A hypervisor has been detected")) {
                         txtStatus = FeatureStatus.ENABLED;
                         log.debug("TXT is enabled");
                     }
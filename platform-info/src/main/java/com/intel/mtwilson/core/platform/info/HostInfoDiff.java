@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.model.HardwareFeature;
+import com.intel.mtwilson.core.common.model.HardwareFeatureDetails;
+import com.intel.mtwilson.core.common.model.HostInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The changes between two {@link HostInfo} snapshots, so that an agent can
+ * send only what changed and the receiver can rebuild the new snapshot from
+ * the one it already has.
+ *
+ * Each {@link Change} sets or removes one value, addressed by a path:
+ * <ul>
+ * <li>the property name for the string properties, for example
+ * {@code hostName} or {@code processorFlags}</li>
+ * <li>{@code hardwareFeatures/<feature>/enabled} and
+ * {@code hardwareFeatures/<feature>/meta/<key>} for the hardware features,
+ * and {@code hardwareFeatures/<feature>} to remove a feature</li>
+ * <li>{@code installedComponents/<component>} to add or remove a component</li>
+ * </ul>
+ * A removed value has a null value. The paths {@code hardwareFeatures},
+ * {@code hardwareFeatures/<feature>/meta} and {@code installedComponents}
+ * set the whole collection to null, or to an empty one when the value is
+ * not null.
+ *
+ * @since 1.4.2
+ */
+public final class HostInfoDiff {
+
+    /**
+     * One value that was set or removed.
+     */
+    public static final class Change {
+        private final String path;
+        private final String value;
+
+        public Change(String path, String value) {
+            this.path = Objects.requireNonNull(path, "path");
+            this.value = value;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the new value, or null when the value was removed
+         */
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Change)) {
+                return false;
+            }
+            Change other = (Change) o;
+            return path.equals(other.path) && Objects.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return value == null ? "-" + path : path + "=" + value;
+        }
+    }
+
+    private static final class Property {
+        private final Function<HostInfo, String> getter;
+        private final BiConsumer<HostInfo, String> setter;
+
+        private Property(Function<HostInfo, String> getter, BiConsumer<HostInfo, String> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private static final Map<String, Property> PROPERTIES = new LinkedHashMap<>();
+
+    static {
+        PROPERTIES.put("biosName", new Property(HostInfo::getBiosName, HostInfo::setBiosName));
+        PROPERTIES.put("biosVersion", new Property(HostInfo::getBiosVersion, HostInfo::setBiosVersion));
+        PROPERTIES.put("osName", new Property(HostInfo::getOsName, HostInfo::setOsName));
+        PROPERTIES.put("osVersion", new Property(HostInfo::getOsVersion, HostInfo::setOsVersion));
+        PROPERTIES.put("vmmName", new Property(HostInfo::getVmmName, HostInfo::setVmmName));
+        PROPERTIES.put("vmmVersion", new Property(HostInfo::getVmmVersion, HostInfo::setVmmVersion));
+        PROPERTIES.put("processorFlags", new Property(HostInfo::getProcessorFlags, HostInfo::setProcessorFlags));
+        PROPERTIES.put("processorInfo", new Property(HostInfo::getProcessorInfo, HostInfo::setProcessorInfo));
+        PROPERTIES.put("hardwareUuid", new Property(HostInfo::getHardwareUuid, HostInfo::setHardwareUuid));
+        PROPERTIES.put("tpmVersion", new Property(HostInfo::getTpmVersion, HostInfo::setTpmVersion));
+        PROPERTIES.put("txtEnabled", new Property(HostInfo::getTxtEnabled, HostInfo::setTxtEnabled));
+        PROPERTIES.put("tpmEnabled", new Property(HostInfo::getTpmEnabled, HostInfo::setTpmEnabled));
+        PROPERTIES.put("isDockerEnv", new Property(HostInfo::getIsDockerEnv, HostInfo::setIsDockerEnv));
+        PROPERTIES.put("tbootInstalled", new Property(HostInfo::getTbootInstalled, HostInfo::setTbootInstalled));
+        PROPERTIES.put("noOfSockets", new Property(HostInfo::getNoOfSockets, HostInfo::setNoOfSockets));
+        PROPERTIES.put("hostName", new Property(HostInfo::getHostName, HostInfo::setHostName));
+    }
+
+    private static final String HARDWARE_FEATURES = "hardwareFeatures";
+    private static final String ENABLED = "enabled";
+    private static final String META = "meta";
+    private static final String INSTALLED_COMPONENTS = "installedComponents";
+    private static final String PRESENT = "true";
+
+    private final List<Change> changes;
+
+    private HostInfoDiff(List<Change> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * @param changes changes, for example received from an agent
+     * @return the diff of the changes
+     */
+    public static HostInfoDiff of(List<Change> changes) {
+        return new HostInfoDiff(new ArrayList<>(changes));
+    }
+
+    /**
+     * Compares two snapshots field by field.
+     *
+     * @param base the snapshot the receiver already has
+     * @param target the new snapshot
+     * @return the changes that turn base into target
+     */
+    public static HostInfoDiff between(HostInfo base, HostInfo target) {
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<String, Property> property : PROPERTIES.entrySet()) {
+            String value = property.getValue().getter.apply(target);
+            if (!Objects.equals(property.getValue().getter.apply(base), value)) {
+                changes.add(new Change(property.getKey(), value));
+            }
+        }
+        diffHardwareFeatures(base.getHardwareFeatures(), target.getHardwareFeatures(), changes);
+        diffInstalledComponents(base.getInstalledComponents(), target.getInstalledComponents(), changes);
+        return new HostInfoDiff(changes);
+    }
+
+    private static void diffHardwareFeatures(Map<HardwareFeature, HardwareFeatureDetails> base,
+                                             Map<HardwareFeature, HardwareFeatureDetails> target,
+                                             List<Change> changes) {
+        if (!diffPresence(HARDWARE_FEATURES, base, target, changes)) {
+            return;
+        }
+        Map<HardwareFeature, HardwareFeatureDetails> from = base == null ? Collections.emptyMap() : base;
+        for (HardwareFeature feature : new TreeSet<>(from.keySet())) {
+            if (target.get(feature) == null && from.get(feature) != null) {
+                changes.add(new Change(HARDWARE_FEATURES + "/" + feature.name(), null));
+            }
+        }
+        for (Map.Entry<HardwareFeature, HardwareFeatureDetails> feature : new TreeMap<>(target).entrySet()) {
+            HardwareFeatureDetails to = feature.getValue();
+            if (to == null) {
+                continue;
+            }
+            HardwareFeatureDetails was = from.get(feature.getKey());
+            String path = HARDWARE_FEATURES + "/" + feature.getKey().name();
+            if (was == null || was.getEnabled() != to.getEnabled()) {
+                changes.add(new Change(path + "/" + ENABLED, String.valueOf(to.getEnabled())));
+            }
+            Map<String, String> wasMeta = was == null ? null : was.getMeta();
+            Map<String, String> toMeta = to.getMeta();
+            if (diffPresence(path + "/" + META, wasMeta, toMeta, changes)) {
+                Map<String, String> fromMeta = wasMeta == null ? Collections.emptyMap() : wasMeta;
+                for (String key : new TreeSet<>(fromMeta.keySet())) {
+                    if (!toMeta.containsKey(key)) {
+                        changes.add(new Change(path + "/" + META + "/" + key, null));
+                    }
+                }
+                for (Map.Entry<String, String> entry : new TreeMap<>(toMeta).entrySet()) {
+                    if (!fromMeta.containsKey(entry.getKey()) || !Objects.equals(fromMeta.get(entry.getKey()), entry.getValue())) {
+                        changes.add(new Change(path + "/" + META + "/" + entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void diffInstalledComponents(Set<String> base, Set<String> target, List<Change> changes) {
+        if (!diffPresence(INSTALLED_COMPONENTS, base, target, changes)) {
+            return;
+        }
+        Set<String> from = base == null ? Collections.emptySet() : base;
+        for (String component : new TreeSet<>(from)) {
+            if (!target.contains(component)) {
+                changes.add(new Change(INSTALLED_COMPONENTS + "/" + component, null));
+            }
+        }
+        for (String component : new TreeSet<>(target)) {
+            if (!from.contains(component)) {
+                changes.add(new Change(INSTALLED_COMPONENTS + "/" + component, PRESENT));
+            }
+        }
+    }
+
+    /**
+     * Records a collection that became null or was created.
+     *
+     * @return whether the target collection exists, so its entries need to be compared
+     */
+    private static boolean diffPresence(String path, Object base, Object target, List<Change> changes) {
+        if (target == null) {
+            if (base != null) {
+                changes.add(new Change(path, null));
+            }
+            return false;
+        }
+        if (base == null) {
+            changes.add(new Change(path, PRESENT));
+        }
+        return true;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Applies the changes to a copy of the base snapshot.
+     *
+     * @param base the snapshot the diff was computed against
+     * @return the new snapshot; the base is not modified
+     * @throws IllegalArgumentException if a change has an unknown path
+     */
+    public HostInfo applyTo(HostInfo base) {
+        HostInfo hostInfo = copy(base);
+        for (Change change : changes) {
+            apply(hostInfo, change);
+        }
+        return hostInfo;
+    }
+
+    private static void apply(HostInfo hostInfo, Change change) {
+        String[] path = change.path.split("/", 4);
+        Property property = PROPERTIES.get(change.path);
+        if (property != null) {
+            property.setter.accept(hostInfo, change.value);
+        } else if (path[0].equals(HARDWARE_FEATURES)) {
+            applyHardwareFeature(hostInfo, path, change);
+        } else if (path[0].equals(INSTALLED_COMPONENTS)) {
+            if (path.length == 1) {
+                hostInfo.setInstalledComponents(change.value == null ? null : new HashSet<>());
+            } else if (change.value == null) {
+                if (hostInfo.getInstalledComponents() != null) {
+                    hostInfo.getInstalledComponents().remove(change.path.substring(INSTALLED_COMPONENTS.length() + 1));
+                }
+            } else {
+                if (hostInfo.getInstalledComponents() == null) {
+                    hostInfo.setInstalledComponents(new HashSet<>());
+                }
+                hostInfo.getInstalledComponents().add(change.path.substring(INSTALLED_COMPONENTS.length() + 1));
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown host information path " + change.path);
+        }
+    }
+
+    private static void applyHardwareFeature(HostInfo hostInfo, String[] path, Change change) {
+        if (path.length == 1) {
+            hostInfo.setHardwareFeatures(change.value == null ? null : new HashMap<>());
+            return;
+        }
+        HardwareFeature feature;
+        try {
+            feature = HardwareFeature.valueOf(path[1]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown hardware feature in " + change.path, e);
+        }
+        Map<HardwareFeature, HardwareFeatureDetails> features = hostInfo.getHardwareFeatures();
+        if (path.length == 2) {
+            if (change.value != null) {
+                throw new IllegalArgumentException("Only the enabled flag and meta of " + change.path + " can be set");
+            }
+            if (features != null) {
+                features.remove(feature);
+            }
+            return;
+        }
+        if (features == null) {
+            features = new HashMap<>();
+            hostInfo.setHardwareFeatures(features);
+        }
+        HardwareFeatureDetails details = features.computeIfAbsent(feature, f -> new HardwareFeatureDetails());
+        if (path.length == 3 && path[2].equals(ENABLED)) {
+            details.setEnabled(Boolean.parseBoolean(change.value));
+        } else if (path.length == 3 && path[2].equals(META)) {
+            details.setMeta(change.value == null ? null : new HashMap<>());
+        } else if (path.length == 4 && path[2].equals(META)) {
+            if (details.getMeta() == null) {
+                details.setMeta(new HashMap<>());
+            }
+            if (change.value == null) {
+                details.getMeta().remove(path[3]);
+            } else {
+                details.getMeta().put(path[3], change.value);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown host information path " + change.path);
+        }
+    }
+
+    private static HostInfo copy(HostInfo base) {
+        HostInfo copy = new HostInfo();
+        for (Property property : PROPERTIES.values()) {
+            property.setter.accept(copy, property.getter.apply(base));
+        }
+        if (base.getHardwareFeatures() != null) {
+            Map<HardwareFeature, HardwareFeatureDetails> features = new HashMap<>();
+            for (Map.Entry<HardwareFeature, HardwareFeatureDetails> feature : base.getHardwareFeatures().entrySet()) {
+                HardwareFeatureDetails details = feature.getValue();
+                HardwareFeatureDetails detailsCopy = null;
+                if (details != null) {
+                    detailsCopy = new HardwareFeatureDetails();
+                    detailsCopy.setEnabled(details.getEnabled());
+                    detailsCopy.setMeta(details.getMeta() == null ? null : new HashMap<>(details.getMeta()));
+                }
+                features.put(feature.getKey(), detailsCopy);
+            }
+            copy.setHardwareFeatures(features);
+        }
+        if (base.getInstalledComponents() != null) {
+            copy.setInstalledComponents(new HashSet<>(base.getInstalledComponents()));
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return changes.toString();
+    }
+}
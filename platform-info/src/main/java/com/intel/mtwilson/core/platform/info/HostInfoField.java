@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+/**
+ * The fields collected by {@link PlatformInfo}, one per probe.
+ *
+ * @since 1.4.2
+ */
+public enum HostInfoField {
+    /**
+     * {@link PlatformInfo#isDockerEnv()}
+     */
+    DOCKER_ENV(false),
+    /**
+     * {@link PlatformInfo#getBiosName()}
+     */
+    BIOS_NAME(true),
+    /**
+     * {@link PlatformInfo#getBiosVersion()}
+     */
+    BIOS_VERSION(true),
+    /**
+     * {@link PlatformInfo#getHardwareUuid()}
+     */
+    HARDWARE_UUID(true),
+    /**
+     * {@link PlatformInfo#getOsName()}
+     */
+    OS_NAME(false),
+    /**
+     * {@link PlatformInfo#getOsVersion()}
+     */
+    OS_VERSION(false),
+    /**
+     * {@link PlatformInfo#getProcessorFlags()} and {@link PlatformInfo#getCpuFeatures()}
+     */
+    PROCESSOR_FLAGS(true),
+    /**
+     * {@link PlatformInfo#getProcessorInfo()}
+     */
+    PROCESSOR_INFO(true),
+    /**
+     * {@link PlatformInfo#getVmmName()}
+     */
+    VMM_NAME(false),
+    /**
+     * {@link PlatformInfo#getVmmVersion()}
+     */
+    VMM_VERSION(false),
+    /**
+     * {@link PlatformInfo#getTpmVersion()}
+     */
+    TPM_VERSION(true),
+    /**
+     * {@link PlatformInfo#getHostName()}
+     */
+    HOST_NAME(false),
+    /**
+     * {@link PlatformInfo#getNoOfSockets()}
+     */
+    NO_OF_SOCKETS(true),
+    /**
+     * {@link PlatformInfo#getTpmEnabled()}
+     */
+    TPM_ENABLED(false),
+    /**
+     * {@link PlatformInfo#getTxtStatus()}
+     */
+    TXT_STATUS(true),
+    /**
+     * {@link PlatformInfo#getTbootStatus()}
+     */
+    TBOOT_STATUS(false),
+    /**
+     * {@link PlatformInfo#getCbntStatus()}
+     */
+    CBNT_STATUS(true),
+    /**
+     * {@link PlatformInfo#getCbntProfile()}
+     */
+    CBNT_PROFILE(true),
+    /**
+     * {@link PlatformInfo#getSuefiStatus()}
+     */
+    SUEFI_STATUS(true),
+    /**
+     * {@link PlatformInfo#getInstalledComponents()}
+     */
+    INSTALLED_COMPONENTS(false);
+
+    private final boolean bootInvariant;
+
+    HostInfoField(boolean bootInvariant) {
+        this.bootInvariant = bootInvariant;
+    }
+
+    /**
+     * @return whether the value can only change with a reboot, so that it
+     * can be kept in a {@link HostInfoSnapshotStore} for the current boot
+     */
+    public boolean isBootInvariant() {
+        return bootInvariant;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps the boot invariant fields of the host information in a file, so
+ * that an agent restarted within the same boot does not probe them again.
+ * A snapshot is only used when it was written during the current boot,
+ * identified by /proc/sys/kernel/random/boot_id, and with the same schema
+ * version.
+ *
+ * The snapshot is replaced by renaming a complete temporary file over it,
+ * so readers never see a partial write, and processes sharing the file
+ * serialize their reads and writes with a lock on a separate lock file.
+ *
+ * @since 1.4.2
+ */
+public final class HostInfoSnapshotStore {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(HostInfoSnapshotStore.class);
+
+    /*
+        increment when the meaning or the format of a stored field changes
+     */
+    static final int SCHEMA_VERSION = 1;
+
+    private static final String SCHEMA_KEY = "schema";
+    private static final String BOOT_ID_KEY = "boot_id";
+
+    private final Path file;
+    private final Path lockFile;
+
+    /**
+     * @param file the snapshot file; its directory must exist and be writable
+     */
+    public HostInfoSnapshotStore(Path file) {
+        this.file = file.toAbsolutePath();
+        this.lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @param bootId the id of the current boot
+     * @return the stored fields, or an empty map when there is no snapshot of this boot
+     */
+    synchronized Map<HostInfoField, String> load(String bootId) throws IOException {
+        Properties properties = new Properties();
+        try (FileChannel lock = openLockFile()) {
+            FileLock shared = lock.lock(0, Long.MAX_VALUE, true);
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (NoSuchFileException e) {
+                return Collections.emptyMap();
+            } finally {
+                shared.release();
+            }
+        }
+        if (!String.valueOf(SCHEMA_VERSION).equals(properties.getProperty(SCHEMA_KEY))
+                || !bootId.equals(properties.getProperty(BOOT_ID_KEY))) {
+            log.debug("Ignoring the host information snapshot {}, it is not from the current boot", file);
+            return Collections.emptyMap();
+        }
+        Map<HostInfoField, String> fields = new EnumMap<>(HostInfoField.class);
+        for (HostInfoField field : HostInfoField.values()) {
+            String value = properties.getProperty(field.name());
+            if (value != null && field.isBootInvariant()) {
+                fields.put(field, value);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Replaces the snapshot with the given fields of the current boot.
+     *
+     * @param bootId the id of the current boot
+     * @param fields boot invariant fields
+     */
+    synchronized void save(String bootId, Map<HostInfoField, String> fields) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(SCHEMA_KEY, String.valueOf(SCHEMA_VERSION));
+        properties.setProperty(BOOT_ID_KEY, bootId);
+        for (Map.Entry<HostInfoField, String> field : fields.entrySet()) {
+            if (field.getKey().isBootInvariant()) {
+                properties.setProperty(field.getKey().name(), field.getValue());
+            }
+        }
+        try (FileChannel lock = openLockFile()) {
+            FileLock exclusive = lock.lock();
+            try {
+                Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+                try {
+                    try (OutputStream out = Files.newOutputStream(temporary)) {
+                        properties.store(out, "host information snapshot");
+                    }
+                    try {
+                        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            } finally {
+                exclusive.release();
+            }
+        }
+    }
+
+    private FileChannel openLockFile() throws IOException {
+        return FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the files that back the host information and reports which
+ * fields they affect. A WatchService only watches directories, so a file is
+ * watched through its parent directory and matched by name, while a watched
+ * directory reports a change for anything created, deleted or modified in it.
+ * Events are debounced: the fields are reported once no further event has
+ * arrived for the debounce interval, so an editor or package manager
+ * rewriting several files results in a single report.
+ *
+ * Pseudo filesystems such as sysfs and procfs do not deliver events for
+ * values that change in place, so fields backed by them still rely on the
+ * time to live of the {@link CachePolicy}.
+ */
+final class HostInfoWatcher implements Closeable {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(HostInfoWatcher.class);
+
+    /*
+        events that keep arriving postpone the report by at most this many debounce intervals
+     */
+    private static final int MAX_DEBOUNCE_INTERVALS = 10;
+
+    private final WatchService watchService;
+    private final Map<Path, Set<HostInfoField>> watchedFiles = new HashMap<>();
+    private final Map<Path, Set<HostInfoField>> watchedDirectories = new HashMap<>();
+    private final long debounceMillis;
+    private final Consumer<Set<HostInfoField>> onChange;
+    private final Thread thread;
+
+    HostInfoWatcher(Map<Path, Set<HostInfoField>> paths, long debounceMillis,
+                    Consumer<Set<HostInfoField>> onChange) throws IOException {
+        this.debounceMillis = debounceMillis;
+        this.onChange = onChange;
+        this.watchService = paths.isEmpty() ? null : paths.keySet().iterator().next().getFileSystem().newWatchService();
+        for (Map.Entry<Path, Set<HostInfoField>> entry : paths.entrySet()) {
+            register(entry.getKey().toAbsolutePath().normalize(), entry.getValue());
+        }
+        thread = new Thread(this::run, "platform-info-watcher");
+        thread.setDaemon(true);
+        if (watchService != null) {
+            thread.start();
+        }
+    }
+
+    private void register(Path path, Set<HostInfoField> fields) {
+        Path directory;
+        Map<Path, Set<HostInfoField>> watched;
+        if (Files.isDirectory(path)) {
+            directory = path;
+            watched = watchedDirectories;
+        } else {
+            directory = path.getParent();
+            watched = watchedFiles;
+            if (directory == null || !Files.isDirectory(directory)) {
+                log.debug("Not watching {}, its directory does not exist", path);
+                return;
+            }
+        }
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Cannot watch {}: {}", directory, e.getMessage());
+            return;
+        }
+        watched.computeIfAbsent(path, p -> EnumSet.noneOf(HostInfoField.class)).addAll(fields);
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Set<HostInfoField> changed = EnumSet.noneOf(HostInfoField.class);
+                collect(watchService.take(), changed);
+                long latest = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis * MAX_DEBOUNCE_INTERVALS);
+                WatchKey key;
+                while (latest - System.nanoTime() > 0
+                        && (key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                if (!changed.isEmpty()) {
+                    try {
+                        onChange.accept(changed);
+                    } catch (RuntimeException e) {
+                        log.warn("Error while handling a change of {}", changed, e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Stopped watching the host information files");
+        }
+    }
+
+    private void collect(WatchKey key, Set<HostInfoField> changed) {
+        Path directory = (Path) key.watchable();
+        Set<HostInfoField> directoryFields = watchedDirectories.get(directory);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directoryFields != null) {
+                changed.addAll(directoryFields);
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, anything watched in this directory may have changed
+                for (Map.Entry<Path, Set<HostInfoField>> file : watchedFiles.entrySet()) {
+                    if (directory.equals(file.getKey().getParent())) {
+                        changed.addAll(file.getValue());
+                    }
+                }
+            } else {
+                Set<HostInfoField> fileFields = watchedFiles.get(directory.resolve((Path) event.context()));
+                if (fileFields != null) {
+                    changed.addAll(fileFields);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            thread.interrupt();
+        }
+    }
+}
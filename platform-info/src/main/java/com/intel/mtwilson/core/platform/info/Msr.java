@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads model specific registers through the msr driver, which is what the
+ * rdmsr tool does: the device file of a CPU (/dev/cpu/N/msr) is read at the
+ * register number as the offset and returns the 64-bit value in little-endian
+ * order. Requires root and the msr kernel module.
+ */
+final class Msr {
+
+    /**
+     * IA32_FEATURE_CONTROL, bits 1:0 are the lock and enable-VMX-inside-SMX bits
+     */
+    static final long IA32_FEATURE_CONTROL = 0x3a;
+
+    /**
+     * MSR_BOOT_GUARD_SACM_INFO, bit 32 is set when Boot Guard is supported,
+     * bits 7:0 hold the profile
+     */
+    static final long BOOT_GUARD_SACM_INFO = 0x13a;
+
+    private Msr() {
+    }
+
+    /**
+     * @param device path of the msr device of one CPU, normally /dev/cpu/0/msr
+     * @param register the register number
+     * @return the value of the register
+     * @throws IOException if the device cannot be opened or the register cannot be read
+     */
+    static long read(Path device, long register) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(device, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, register + buffer.position()) < 0) {
+                    throw new EOFException("Cannot read MSR 0x" + Long.toHexString(register) + " from " + device);
+                }
+            }
+        }
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    /**
+     * Extracts a bit field the way "rdmsr -f high:low" does.
+     *
+     * @param value the register value
+     * @param high the highest bit of the field, inclusive
+     * @param low the lowest bit of the field, inclusive
+     * @return the field shifted down to bit 0
+     */
+    static long bits(long value, int high, int low) {
+        int width = high - low + 1;
+        long shifted = value >>> low;
+        return width >= 64 ? shifted : shifted & ((1L << width) - 1);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parser for the os-release(5) file, which replaces running lsb_release.
+ *
+ * Sample content of /etc/os-release
+ * NAME="Red Hat Enterprise Linux Server"
+ * VERSION="7.6 (Maipo)"
+ * ID="rhel"
+ * VERSION_ID="7.6"
+ */
+final class OsRelease {
+
+    private final Map<String, String> values;
+
+    private OsRelease(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Reads the first of the given files that exists, normally /etc/os-release
+     * and then /usr/lib/os-release.
+     *
+     * @param candidates os-release files in order of preference
+     * @return the parsed file, or null if none of them could be read
+     */
+    static OsRelease read(Path... candidates) {
+        for (Path candidate : candidates) {
+            if (!Files.isReadable(candidate)) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(candidate, StandardCharsets.UTF_8)) {
+                return parse(reader);
+            } catch (IOException e) {
+                // try the next candidate
+            }
+        }
+        return null;
+    }
+
+    static OsRelease parse(BufferedReader reader) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            int separator = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || separator <= 0) {
+                continue;
+            }
+            values.put(line.substring(0, separator).trim(), unquote(line.substring(separator + 1).trim()));
+        }
+        return new OsRelease(values);
+    }
+
+    /**
+     * Values follow shell quoting rules: they may be wrapped in single or
+     * double quotes and use backslash escapes inside double quotes.
+     */
+    private static String unquote(String value) {
+        if (value.length() < 2) {
+            return value;
+        }
+        char quote = value.charAt(0);
+        if ((quote != '"' && quote != '\'') || value.charAt(value.length() - 1) != quote) {
+            return value;
+        }
+        String inner = value.substring(1, value.length() - 1);
+        if (quote == '\'' || inner.indexOf('\\') < 0) {
+            return inner;
+        }
+        StringBuilder builder = new StringBuilder(inner.length());
+        for (int i = 0; i < inner.length(); i++) {
+            char c = inner.charAt(i);
+            if (c == '\\' && i + 1 < inner.length()) {
+                c = inner.charAt(++i);
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @return the NAME field, for example "Red Hat Enterprise Linux Server"
+     */
+    String getName() {
+        return values.get("NAME");
+    }
+
+    /**
+     * @return the ID field, for example "rhel"
+     */
+    String getId() {
+        return values.get("ID");
+    }
+
+    /**
+     * @return the VERSION_ID field, for example "7.6"
+     */
+    String getVersionId() {
+        return values.get("VERSION_ID");
+    }
+
+    /**
+     * Returns the name in the form lsb_release reports as "Distributor ID",
+     * which is what existing flavors were created with: the NAME without the
+     * "Linux" and "GNU/Linux" words and without spaces, for example
+     * "RedHatEnterpriseServer", "CentOS" or "Ubuntu". Falls back to the ID
+     * when there is no NAME.
+     *
+     * @return the distributor id, or null if neither NAME nor ID is present
+     */
+    String getDistributorId() {
+        String name = getName();
+        if (name == null || name.trim().isEmpty()) {
+            return getId();
+        }
+        StringBuilder builder = new StringBuilder(name.length());
+        for (String word : name.trim().split("\\s+")) {
+            if (!word.equals("Linux") && !word.equals("GNU/Linux")) {
+                builder.append(word);
+            }
+        }
+        return builder.length() == 0 ? name.trim() : builder.toString();
+    }
+}
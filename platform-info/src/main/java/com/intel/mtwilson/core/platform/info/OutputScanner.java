@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.util.exec.Result;
+
+/**
+ * Scans the output of a command line by line without splitting it: the
+ * output is decoded once and lines, keys and values are compared in place,
+ * so a lookup allocates nothing but the value it returns.
+ *
+ * Lines end with \n; the \r of Windows line endings and any other leading or
+ * trailing whitespace is ignored, as with {@link String#trim()}. Key/value
+ * lines are "key: value" (lsb_release, lscpu, virsh, dmidecode) or
+ * "key=value" (wmic /value); the key is matched ignoring case.
+ */
+final class OutputScanner {
+
+    private final String text;
+    private final int length;
+    private int next;
+    private int start;
+    private int end;
+
+    OutputScanner(String text) {
+        this.text = text;
+        this.length = text == null ? 0 : text.length();
+    }
+
+    /**
+     * @return a scanner of the standard output, decoded once
+     */
+    static OutputScanner stdout(Result result) {
+        return new OutputScanner(result == null ? null : result.getStdout());
+    }
+
+    /**
+     * @return false if the command gave no output at all (null)
+     */
+    boolean hasOutput() {
+        return text != null;
+    }
+
+    /**
+     * @return true if the output contains the text anywhere
+     */
+    boolean contains(String s) {
+        return text != null && text.contains(s);
+    }
+
+    /**
+     * @return true if the whole output, without leading and trailing whitespace, is the given text
+     */
+    boolean contentEquals(String s) {
+        int from = 0;
+        int to = length;
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to - from == s.length() && text.startsWith(s, from);
+    }
+
+    /**
+     * Moves to the next line.
+     *
+     * @return false if there are no more lines
+     */
+    boolean nextLine() {
+        if (next >= length) {
+            return false;
+        }
+        int newline = text.indexOf('\n', next);
+        int lineEnd = newline < 0 ? length : newline;
+        start = next;
+        end = lineEnd;
+        next = newline < 0 ? length : newline + 1;
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the line with the given index, counting from the first line.
+     *
+     * @return false if the output has fewer lines
+     */
+    boolean moveTo(int index) {
+        next = 0;
+        for (int i = 0; i <= index; i++) {
+            if (!nextLine()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isBlank() {
+        return start == end;
+    }
+
+    boolean startsWith(String prefix) {
+        return end - start >= prefix.length() && text.startsWith(prefix, start);
+    }
+
+    boolean lineEquals(String s) {
+        return end - start == s.length() && text.startsWith(s, start);
+    }
+
+    /**
+     * Checks whether the line contains the word, ignoring control characters
+     * in the line such as the NULs of UTF-16 output decoded as bytes.
+     */
+    boolean lineContains(String word) {
+        for (int from = start; from < end; from++) {
+            int i = from;
+            int matched = 0;
+            while (i < end && matched < word.length()) {
+                char c = text.charAt(i++);
+                if (c < ' ' && c != word.charAt(matched)) {
+                    continue;
+                }
+                if (c != word.charAt(matched)) {
+                    break;
+                }
+                matched++;
+            }
+            if (matched == word.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the current line
+     */
+    String line() {
+        return text.substring(start, end);
+    }
+
+    /**
+     * @return the current line with all whitespace removed
+     */
+    String lineWithoutWhitespace() {
+        StringBuilder builder = null;
+        for (int i = start; i < end; i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                builder = new StringBuilder(end - start);
+                break;
+            }
+        }
+        if (builder == null) {
+            return line();
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the whitespace separated token of the current line, or null if there are fewer tokens
+     */
+    String token(int index) {
+        return token(start, index);
+    }
+
+    private String token(int from, int index) {
+        int i = from;
+        for (int count = 0; ; count++) {
+            while (i < end && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == end) {
+                return null;
+            }
+            int tokenStart = i;
+            while (i < end && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (count == index) {
+                return text.substring(tokenStart, i);
+            }
+        }
+    }
+
+    /**
+     * @return true if the current line is a key/value line with the given key
+     */
+    boolean keyEquals(char delimiter, String key) {
+        int separator = separator(delimiter);
+        if (separator < 0) {
+            return false;
+        }
+        int keyEnd = separator;
+        while (keyEnd > start && text.charAt(keyEnd - 1) <= ' ') {
+            keyEnd--;
+        }
+        return keyEnd - start == key.length() && text.regionMatches(true, start, key, 0, key.length());
+    }
+
+    /**
+     * @return a view of the value of the current key/value line, or null if it has no delimiter
+     */
+    CharSequence value(char delimiter) {
+        int from = valueStart(delimiter);
+        return from < 0 ? null : new View(text, from, end);
+    }
+
+    /**
+     * @return the whitespace separated token of the value of the current line, or null
+     */
+    String valueToken(char delimiter, int index) {
+        int from = valueStart(delimiter);
+        return from < 0 ? null : token(from, index);
+    }
+
+    private int separator(char delimiter) {
+        int separator = text.indexOf(delimiter, start);
+        return separator < 0 || separator >= end ? -1 : separator;
+    }
+
+    private int valueStart(char delimiter) {
+        int separator = separator(delimiter);
+        if (separator < 0) {
+            return -1;
+        }
+        int from = separator + 1;
+        while (from < end && text.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Finds the next line with the key.
+     *
+     * @return the value, or null if no line has the key
+     */
+    String find(char delimiter, String key) {
+        while (nextLine()) {
+            if (keyEquals(delimiter, key)) {
+                return value(delimiter).toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param skipComments whether lines starting with # are skipped, as printed by dmidecode
+     * @return the next line, or an empty string if there is none
+     */
+    String firstLine(boolean skipComments) {
+        while (nextLine()) {
+            if (!skipComments || !startsWith("#")) {
+                return line();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * @return the whole output, so that logging it costs nothing unless the message is logged
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * Read-only view of a part of the output.
+     */
+    private static final class View implements CharSequence {
+
+        private final String text;
+        private final int start;
+        private final int end;
+
+        private View(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException(from + ", " + to);
+            }
+            return new View(text, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text.substring(start, end);
+        }
+    }
+}
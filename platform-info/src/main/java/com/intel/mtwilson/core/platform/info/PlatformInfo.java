@@ -4,12 +4,31 @@
  */
 package com.intel.mtwilson.core.platform.info;
 
+import com.intel.mtwilson.core.common.ErrorCode;
 import com.intel.mtwilson.core.common.PlatformInfoException;
 import com.intel.mtwilson.core.common.model.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 import static com.intel.mtwilson.core.common.model.HardwareFeature.*;
 import java.util.Set;
@@ -24,6 +43,8 @@ import java.util.Set;
  */
 public class PlatformInfo {
 
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PlatformInfo.class);
+
     /**
      * Sole constructor.
      * Detects and executes appropriate OS commands to get Platform information.
@@ -53,38 +74,858 @@ public class PlatformInfo {
         this.hostInfoCommand = hostInfoCommand;
     }
 
+    /**
+     * Detects the OS like {@link #PlatformInfo()} and loads the boot
+     * invariant fields from the snapshot store.
+     *
+     * @param snapshotStore snapshot of the current boot, see {@link #setSnapshotStore}
+     *
+     * @since 1.4.2
+     */
+    public PlatformInfo(HostInfoSnapshotStore snapshotStore) {
+        this();
+        setSnapshotStore(snapshotStore);
+    }
+
+    /**
+     * A single platform probe, typically one of the cached getters below.
+     */
+    private interface Probe<T> {
+        T get() throws IOException, PlatformInfoException;
+    }
+
+    private Executor executor;
+
+    /*
+        the pool created by setParallelism, the only executor this class shuts down
+     */
+    private ExecutorService ownPool;
+
+    /**
+     * Sets the executor used by {@link #getHostInfo()} to run the independent
+     * probes concurrently. When no executor is set (the default) the probes
+     * run one after another on the calling thread. The caller keeps ownership
+     * of the executor; a pool created by {@link #setParallelism(int)} is shut
+     * down.
+     *
+     * @param executor executor for the probes, or null for sequential collection
+     *
+     * @since 1.4.2
+     */
+    public void setExecutor(Executor executor) {
+        shutdownOwnPool();
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the probes of {@link #getHostInfo()} on a fixed pool of daemon
+     * threads, so at most {@code threads} commands are executing at a time.
+     * A pool created by an earlier call is shut down; an executor passed to
+     * {@link #setExecutor(Executor)} is left to its owner.
+     *
+     * @param threads maximum number of concurrent probes, 1 or less for sequential collection
+     *
+     * @since 1.4.2
+     */
+    public void setParallelism(int threads) {
+        shutdownOwnPool();
+        ownPool = threads > 1 ? Executors.newFixedThreadPool(threads, new ProbeThreadFactory()) : null;
+        executor = ownPool;
+    }
+
+    private void shutdownOwnPool() {
+        if (ownPool != null) {
+            ownPool.shutdown();
+            ownPool = null;
+        }
+    }
+
+    private static class ProbeThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "platform-info-probe-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private long timeoutMillis = CommandLineRunner.NO_TIMEOUT;
+
+    /**
+     * Sets a deadline for {@link #getHostInfo()}: commands still running when
+     * it passes are killed, the probes that have not run their commands yet
+     * fail right away, and the collection fails with
+     * {@link ErrorCode#COMMAND_TIMEOUT}. Timeouts of single commands are set
+     * on the {@link CommandLineRunner}.
+     *
+     * @param timeout the time a collection may take, or {@link CommandLineRunner#NO_TIMEOUT}
+     * @param unit the unit of the timeout
+     *
+     * @since 1.4.2
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    private volatile ProbeListener probeListener = ProbeListener.NONE;
+
+    /**
+     * Sets the listener that receives the duration of every probed field and,
+     * through the runner of the host info command, the timings of every
+     * command, for example a {@link ProbeMetricsRecorder}.
+     *
+     * @param probeListener the listener, or {@link ProbeListener#NONE}
+     *
+     * @since 1.4.2
+     */
+    public void setProbeListener(ProbeListener probeListener) {
+        this.probeListener = probeListener == null ? ProbeListener.NONE : probeListener;
+        synchronized (traces) {
+            if (tracingListener != null) {
+                tracingListener.delegate = this.probeListener;
+                return;
+            }
+            CommandLineRunner runner = hostInfoCommand.getRunner();
+            if (runner != null) {
+                runner.setProbeListener(this.probeListener);
+            }
+        }
+    }
+
+    private final List<CollectionTrace> traces = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<List<CollectionTrace.FieldTrace>> tracedProbes = new ThreadLocal<>();
+    private TracingListener tracingListener;
+
+    /**
+     * Wraps the probe listener of the runner while collections are traced,
+     * and adds the commands to the traces of the probe running on the thread.
+     */
+    private final class TracingListener implements ProbeListener {
+
+        private volatile ProbeListener delegate;
+
+        private TracingListener(ProbeListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void commandExecuted(String[] commandArgs, long spawnNanos, long runtimeNanos, int exitCode, long outputBytes) {
+            delegate.commandExecuted(commandArgs, spawnNanos, runtimeNanos, exitCode, outputBytes);
+            trace(commandArgs, runtimeNanos, exitCode, null, false);
+        }
+
+        @Override
+        public void commandFailed(String[] commandArgs, long runtimeNanos, Exception error) {
+            delegate.commandFailed(commandArgs, runtimeNanos, error);
+            trace(commandArgs, runtimeNanos, null, error, false);
+        }
+
+        @Override
+        public void commandReused(String[] commandArgs, long waitNanos) {
+            delegate.commandReused(commandArgs, waitNanos);
+            trace(commandArgs, waitNanos, null, null, true);
+        }
+
+        @Override
+        public void fieldProbed(HostInfoField field, long durationNanos) {
+            delegate.fieldProbed(field, durationNanos);
+        }
+
+        @Override
+        public void fieldFailed(HostInfoField field, long durationNanos, Exception error) {
+            delegate.fieldFailed(field, durationNanos, error);
+        }
+
+        private void trace(String[] commandArgs, long nanos, Integer exitCode, Exception error, boolean reused) {
+            List<CollectionTrace.FieldTrace> probes = tracedProbes.get();
+            if (probes != null) {
+                for (CollectionTrace.FieldTrace probe : probes) {
+                    probe.commandExecuted(commandArgs, nanos, exitCode, error, reused);
+                }
+            }
+        }
+    }
+
+    private void startTrace(CollectionTrace trace) {
+        trace.start();
+        synchronized (traces) {
+            if (traces.isEmpty()) {
+                CommandLineRunner runner = hostInfoCommand.getRunner();
+                if (runner != null) {
+                    tracingListener = new TracingListener(runner.getProbeListener());
+                    runner.setProbeListener(tracingListener);
+                }
+            }
+            traces.add(trace);
+        }
+    }
+
+    private void endTrace(CollectionTrace trace) {
+        synchronized (traces) {
+            traces.remove(trace);
+            if (traces.isEmpty() && tracingListener != null) {
+                CommandLineRunner runner = hostInfoCommand.getRunner();
+                if (runner != null && runner.getProbeListener() == tracingListener) {
+                    runner.setProbeListener(tracingListener.delegate);
+                }
+                tracingListener = null;
+            }
+        }
+        trace.end();
+    }
+
+    private static final class CachedValue {
+        private final Object value;
+        private final long storedAt;
+
+        private CachedValue(Object value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private static final class CpuFeatures {
+        private final String flags;
+        private final CpuFeatureSet set;
+
+        private CpuFeatures(String flags, CpuFeatureSet set) {
+            this.flags = flags;
+            this.set = set;
+        }
+    }
+
+    private final Map<HostInfoField, CachedValue> cache = new ConcurrentHashMap<>();
+    private volatile CpuFeatures cpuFeatures;
+    private volatile CachePolicy cachePolicy = CachePolicy.defaults();
+    private final AtomicInteger collections = new AtomicInteger();
+    private volatile long collectionStartedAt;
+    LongSupplier ticker = System::nanoTime;
+
+    /**
+     * Sets how long each field is cached. The default is
+     * {@link CachePolicy#defaults()}; {@link CachePolicy#permanent()} keeps
+     * every value until it is invalidated.
+     *
+     * @param cachePolicy the policy
+     *
+     * @since 1.4.2
+     */
+    public void setCachePolicy(CachePolicy cachePolicy) {
+        this.cachePolicy = Objects.requireNonNull(cachePolicy, "cachePolicy");
+    }
+
+    /**
+     * Drops the cached value of a field, so the next call probes it again.
+     *
+     * @param field the field
+     *
+     * @since 1.4.2
+     */
+    public void invalidate(HostInfoField field) {
+        cache.remove(field);
+    }
+
+    /**
+     * Drops every cached value.
+     *
+     * @since 1.4.2
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Collects the host information again, probing every field that the
+     * cache policy does not keep forever even if its value has not expired
+     * yet. Permanent fields are served from the cache.
+     *
+     * @return Host information
+     *
+     * @since 1.4.2
+     */
+    public HostInfo refresh() throws IOException, PlatformInfoException {
+        CachePolicy policy = cachePolicy;
+        for (HostInfoField field : HostInfoField.values()) {
+            if (policy.getTtlNanos(field) != CachePolicy.FOREVER) {
+                cache.remove(field);
+            }
+        }
+        return getHostInfo();
+    }
+
+    private HostInfoSnapshotStore snapshotStore;
+    private String bootId;
+    private Map<HostInfoField, String> snapshot = Collections.emptyMap();
+
+    /**
+     * Loads the boot invariant fields, such as the BIOS, hardware UUID and
+     * processor information, from a snapshot written during the current boot
+     * so that they are not probed again, and writes them back to the store
+     * whenever {@link #getHostInfo()} collects values that differ from the
+     * snapshot. Nothing is loaded or stored when the boot id of the host is
+     * not known.
+     *
+     * @param snapshotStore the store, or null to stop using one
+     *
+     * @since 1.4.2
+     */
+    public synchronized void setSnapshotStore(HostInfoSnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
+        this.bootId = snapshotStore == null ? null : hostInfoCommand.getBootId();
+        this.snapshot = Collections.emptyMap();
+        if (bootId == null) {
+            return;
+        }
+        try {
+            snapshot = snapshotStore.load(bootId);
+        } catch (IOException e) {
+            log.warn("Cannot load the host information snapshot {}: {}", snapshotStore.getFile(), e.getMessage());
+        }
+        long now = ticker.getAsLong();
+        for (Map.Entry<HostInfoField, String> field : snapshot.entrySet()) {
+            cache.putIfAbsent(field.getKey(), new CachedValue(field.getValue(), now));
+        }
+    }
+
+    /**
+     * Writes the cached boot invariant fields to the snapshot store when they
+     * differ from the snapshot on disk.
+     */
+    private synchronized void saveSnapshot() {
+        if (snapshotStore == null || bootId == null) {
+            return;
+        }
+        Map<HostInfoField, String> fields = new EnumMap<>(HostInfoField.class);
+        for (HostInfoField field : HostInfoField.values()) {
+            CachedValue entry = cache.get(field);
+            if (field.isBootInvariant() && entry != null && entry.value instanceof String) {
+                fields.put(field, (String) entry.value);
+            }
+        }
+        if (fields.equals(snapshot)) {
+            return;
+        }
+        try {
+            snapshotStore.save(bootId, fields);
+            snapshot = fields;
+        } catch (IOException e) {
+            log.warn("Cannot save the host information snapshot {}: {}", snapshotStore.getFile(), e.getMessage());
+        }
+    }
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    private final List<HostInfoChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private HostInfoWatcher watcher;
+
+    /**
+     * @param listener notified of changes detected while watching, see {@link #startWatching()}
+     *
+     * @since 1.4.2
+     */
+    public void addHostInfoChangeListener(HostInfoChangeListener listener) {
+        changeListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    /**
+     * @param listener a listener added before
+     *
+     * @since 1.4.2
+     */
+    public void removeHostInfoChangeListener(HostInfoChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Same as {@link #startWatching(long, TimeUnit)} with a debounce interval
+     * of half a second.
+     *
+     * @since 1.4.2
+     */
+    public void startWatching() throws IOException {
+        startWatching(DEFAULT_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Watches the files backing the host information, such as /etc/hostname,
+     * /etc/os-release and the installed component binaries, and invalidates
+     * only the fields a change affects. When listeners are registered the
+     * affected fields are probed again right away and the listeners are
+     * notified of those whose values changed. Fields that have no watchable
+     * file still expire according to the {@link CachePolicy}.
+     *
+     * @param debounce how long to wait for further changes before handling them
+     * @param unit the unit of the debounce interval
+     *
+     * @since 1.4.2
+     */
+    public synchronized void startWatching(long debounce, TimeUnit unit) throws IOException {
+        stopWatching();
+        watcher = new HostInfoWatcher(hostInfoCommand.getWatchedPaths(), unit.toMillis(debounce), this::fieldsChanged);
+    }
+
+    /**
+     * Stops watching started by {@link #startWatching()}.
+     *
+     * @since 1.4.2
+     */
+    public synchronized void stopWatching() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Invalidates the fields and, when there are listeners, probes them again
+     * and notifies the listeners of the ones that now have different values.
+     */
+    void fieldsChanged(Set<HostInfoField> fields) {
+        Map<HostInfoField, Object> previous = new EnumMap<>(HostInfoField.class);
+        for (HostInfoField field : fields) {
+            CachedValue entry = cache.remove(field);
+            previous.put(field, entry == null ? null : entry.value);
+        }
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        Set<HostInfoField> changed = EnumSet.noneOf(HostInfoField.class);
+        for (HostInfoField field : fields) {
+            try {
+                if (!Objects.equals(previous.get(field), probe(field).get())) {
+                    changed.add(field);
+                }
+            } catch (IOException | PlatformInfoException e) {
+                log.warn("Cannot probe {} after a change on the host: {}", field, e.getMessage());
+            }
+        }
+        if (!changed.isEmpty()) {
+            for (HostInfoChangeListener listener : changeListeners) {
+                listener.hostInfoChanged(this, changed);
+            }
+        }
+    }
+
+    /**
+     * @return the cached getter of the field
+     */
+    private Probe<?> probe(HostInfoField field) {
+        switch (field) {
+            case DOCKER_ENV: return this::isDockerEnv;
+            case BIOS_NAME: return this::getBiosName;
+            case BIOS_VERSION: return this::getBiosVersion;
+            case HARDWARE_UUID: return this::getHardwareUuid;
+            case OS_NAME: return this::getOsName;
+            case OS_VERSION: return this::getOsVersion;
+            case PROCESSOR_FLAGS: return this::getProcessorFlags;
+            case PROCESSOR_INFO: return this::getProcessorInfo;
+            case VMM_NAME: return this::getVmmName;
+            case VMM_VERSION: return this::getVmmVersion;
+            case TPM_VERSION: return this::getTpmVersion;
+            case HOST_NAME: return this::getHostName;
+            case NO_OF_SOCKETS: return this::getNoOfSockets;
+            case TPM_ENABLED: return this::getTpmEnabled;
+            case TXT_STATUS: return this::getTxtStatus;
+            case TBOOT_STATUS: return this::getTbootStatus;
+            case CBNT_STATUS: return this::getCbntStatus;
+            case CBNT_PROFILE: return this::getCbntProfile;
+            case SUEFI_STATUS: return this::getSuefiStatus;
+            case INSTALLED_COMPONENTS: return this::getInstalledComponents;
+            default: throw new IllegalArgumentException("Unknown field " + field);
+        }
+    }
+
+    /**
+     * Returns the cached value of the field, or probes it when there is none
+     * or it has expired. Values stored during a collection that is still in
+     * progress are never expired, so a field with a short time to live is
+     * probed only once per {@link #getHostInfo()}.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(HostInfoField field, Probe<T> probe) throws IOException, PlatformInfoException {
+        long now = ticker.getAsLong();
+        CachedValue entry = cache.get(field);
+        if (entry != null && isFresh(field, entry, now)) {
+            for (CollectionTrace trace : traces) {
+                trace.cached(field);
+            }
+            return (T) entry.value;
+        }
+        T value = probeListener == ProbeListener.NONE && traces.isEmpty() ? probe.get() : measure(field, probe);
+        if (value != null) {
+            cache.put(field, new CachedValue(value, now));
+        }
+        return value;
+    }
+
+    private <T> T measure(HostInfoField field, Probe<T> probe) throws IOException, PlatformInfoException {
+        ProbeListener listener = probeListener;
+        List<CollectionTrace.FieldTrace> probes = new ArrayList<>(traces.size());
+        for (CollectionTrace trace : traces) {
+            probes.add(trace.probeStarted(field));
+        }
+        List<CollectionTrace.FieldTrace> outer = tracedProbes.get();
+        tracedProbes.set(probes);
+        long start = System.nanoTime();
+        try {
+            T value = probe.get();
+            listener.fieldProbed(field, System.nanoTime() - start);
+            for (CollectionTrace.FieldTrace traced : probes) {
+                traced.probeEnded(null);
+            }
+            return value;
+        } catch (IOException | PlatformInfoException | RuntimeException e) {
+            listener.fieldFailed(field, System.nanoTime() - start, e);
+            for (CollectionTrace.FieldTrace traced : probes) {
+                traced.probeEnded(e);
+            }
+            throw e;
+        } finally {
+            if (outer == null) {
+                tracedProbes.remove();
+            } else {
+                tracedProbes.set(outer);
+            }
+        }
+    }
+
+    private boolean isFresh(HostInfoField field, CachedValue entry, long now) {
+        long ttl = cachePolicy.getTtlNanos(field);
+        if (ttl == CachePolicy.FOREVER || now - entry.storedAt < ttl) {
+            return true;
+        }
+        return collections.get() > 0 && entry.storedAt - collectionStartedAt >= 0;
+    }
+
+    private long startCollection() {
+        long now = ticker.getAsLong();
+        if (collections.getAndIncrement() == 0) {
+            collectionStartedAt = now;
+        }
+        return now;
+    }
+
+    private void endCollection() {
+        collections.decrementAndGet();
+    }
+
     public HostInfo getHostInfo() throws IOException, PlatformInfoException {
+        return collect(ALL_FIELDS);
+    }
+
+    /**
+     * Collects only the given fields of the host information, and the fields
+     * they depend on: the TPM feature reports the TPM version along with the
+     * TPM status, and the CBnT profile is reported with the CBnT status. The
+     * probes of the other fields do not run and their parts of the HostInfo
+     * are left unset. The hardware features hold the TPM, TXT, SUEFI and
+     * CBnT entries of the requested status fields.
+     *
+     * <pre>
+     * HostInfo hostInfo = platformInfo.getHostInfo(EnumSet.of(HostInfoField.HARDWARE_UUID, HostInfoField.TPM_ENABLED));
+     * </pre>
+     *
+     * @param fields the fields to collect
+     * @return Host information
+     *
+     * @since 1.4.2
+     */
+    public HostInfo getHostInfo(EnumSet<HostInfoField> fields) throws IOException, PlatformInfoException {
+        return collect(withDependencies(fields));
+    }
+
+    private static final Set<HostInfoField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(HostInfoField.class));
+
+    /*
+        order in which the probes are started, which is the order in which assembleHostInfo() reads them
+     */
+    private static final List<HostInfoField> PROBE_ORDER = Collections.unmodifiableList(Arrays.asList(
+            HostInfoField.BIOS_NAME, HostInfoField.BIOS_VERSION, HostInfoField.OS_NAME, HostInfoField.OS_VERSION,
+            HostInfoField.VMM_NAME, HostInfoField.VMM_VERSION, HostInfoField.PROCESSOR_FLAGS, HostInfoField.PROCESSOR_INFO,
+            HostInfoField.HARDWARE_UUID, HostInfoField.TPM_VERSION, HostInfoField.TXT_STATUS, HostInfoField.TPM_ENABLED,
+            HostInfoField.DOCKER_ENV, HostInfoField.TBOOT_STATUS, HostInfoField.NO_OF_SOCKETS, HostInfoField.HOST_NAME,
+            HostInfoField.SUEFI_STATUS, HostInfoField.CBNT_STATUS, HostInfoField.CBNT_PROFILE, HostInfoField.INSTALLED_COMPONENTS));
+
+    private static Set<HostInfoField> withDependencies(Set<HostInfoField> fields) {
+        EnumSet<HostInfoField> required = EnumSet.noneOf(HostInfoField.class);
+        required.addAll(fields);
+        if (required.contains(HostInfoField.TPM_ENABLED)) {
+            required.add(HostInfoField.TPM_VERSION);
+        }
+        if (required.contains(HostInfoField.CBNT_PROFILE)) {
+            required.add(HostInfoField.CBNT_STATUS);
+        }
+        return required;
+    }
+
+    private HostInfo collect(Set<HostInfoField> fields) throws IOException, PlatformInfoException {
+        long startedAt = startCollection();
+        try (CommandLineRunner.Scope scope = openCommandScope()) {
+            try {
+                if (executor != null) {
+                    join(CompletableFuture.allOf(startProbes(executor, fields)));
+                }
+                HostInfo hostInfo = assembleHostInfo(fields);
+                checkDeadline(scope);
+                saveSnapshot();
+                return hostInfo;
+            } finally {
+                discardIfDeadlineExceeded(scope, startedAt);
+            }
+        } finally {
+            endCollection();
+        }
+    }
+
+    /**
+     * Collects the host information like {@link #getHostInfo()} and records
+     * in the trace where each field came from and which commands ran.
+     *
+     * @param trace the trace to fill; its earlier content is replaced
+     * @return Host information
+     *
+     * @since 1.4.2
+     */
+    public HostInfo getHostInfo(CollectionTrace trace) throws IOException, PlatformInfoException {
+        startTrace(trace);
+        try {
+            return getHostInfo();
+        } finally {
+            endTrace(trace);
+        }
+    }
+
+    /**
+     * Collects the host information without blocking the caller. Every probe
+     * runs as a separate task on the given executor and the returned future
+     * completes once all of them are done. Failures complete the future
+     * exceptionally with a {@link PlatformInfoException}.
+     *
+     * @param executor executor for the probes
+     * @return future host information
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<HostInfo> getHostInfoAsync(Executor executor) {
+        CompletableFuture<HostInfo> hostInfo = new CompletableFuture<>();
+        long startedAt = startCollection();
+        CommandLineRunner.Scope scope = openCommandScope();
+        CompletableFuture<?>[] probes;
+        try {
+            probes = startProbes(executor, ALL_FIELDS);
+        } catch (RuntimeException e) {
+            closeCommandScope(scope);
+            endCollection();
+            hostInfo.completeExceptionally(toPlatformInfoException(e));
+            return hostInfo;
+        }
+        CompletableFuture.allOf(probes).whenComplete((ignored, error) -> {
+            if (error != null) {
+                hostInfo.completeExceptionally(toPlatformInfoException(error));
+            } else {
+                complete(hostInfo, () -> {
+                    HostInfo result = assembleHostInfo(ALL_FIELDS);
+                    checkDeadline(scope);
+                    saveSnapshot();
+                    return result;
+                });
+            }
+            discardIfDeadlineExceeded(scope, startedAt);
+            closeCommandScope(scope);
+            endCollection();
+        });
+        return hostInfo;
+    }
+
+    /**
+     * Opens a command scope on the runner so that a command shared by several
+     * probes (lsb_release, docker/virsh, rdmsr) runs only once per collection.
+     */
+    private CommandLineRunner.Scope openCommandScope() {
+        CommandLineRunner runner = hostInfoCommand.getRunner();
+        return runner == null ? null : runner.openScope(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void checkDeadline(CommandLineRunner.Scope scope) throws PlatformInfoException {
+        if (scope != null && scope.isDeadlineExceeded()) {
+            throw new PlatformInfoException(ErrorCode.COMMAND_TIMEOUT,
+                    "Platform information was not collected within " + timeoutMillis + " ms");
+        }
+    }
+
+    /**
+     * Probes that could not run their commands before the deadline may have
+     * cached fallback values, so nothing stored by such a collection is kept.
+     */
+    private void discardIfDeadlineExceeded(CommandLineRunner.Scope scope, long startedAt) {
+        if (scope != null && scope.isDeadlineExceeded()) {
+            cache.entrySet().removeIf(entry -> entry.getValue().storedAt - startedAt >= 0);
+        }
+    }
+
+    private static void closeCommandScope(CommandLineRunner.Scope scope) {
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    /**
+     * Builds the HostInfo of the fields from the getters; when the probes
+     * have already run every value is served from the per-field cache.
+     */
+    private HostInfo assembleHostInfo(Set<HostInfoField> fields) throws IOException, PlatformInfoException {
         HostInfo hostInfo = new HostInfo();
-        hostInfo.setBiosName(getBiosName());
-        hostInfo.setBiosVersion(getBiosVersion());
-        hostInfo.setOsName(getOsName());
-        hostInfo.setOsVersion(getOsVersion());
-        hostInfo.setVmmName(getVmmName());
-        hostInfo.setVmmVersion(getVmmVersion());
-        hostInfo.setProcessorFlags(getProcessorFlags());
-        hostInfo.setProcessorInfo(getProcessorInfo());
-        hostInfo.setHardwareUuid(getHardwareUuid());
-        hostInfo.setTpmVersion(getTpmVersion());
-        hostInfo.setTxtEnabled(String.valueOf(getTxtStatus().equals(FeatureStatus.ENABLED.getValue())));
-        hostInfo.setTpmEnabled(getTpmEnabled());
-        hostInfo.setIsDockerEnv(isDockerEnv());
-        hostInfo.setTbootInstalled(String.valueOf(getTbootStatus().equals(ComponentStatus.INSTALLED.getValue())));
-        hostInfo.setNoOfSockets(getNoOfSockets());
-        hostInfo.setHostName(getHostName());
-        hostInfo.setHardwareFeatures(getHardwareFeatures());
-        hostInfo.setInstalledComponents(getInstalledComponents());
+        if (fields.contains(HostInfoField.BIOS_NAME)) {
+            hostInfo.setBiosName(getBiosName());
+        }
+        if (fields.contains(HostInfoField.BIOS_VERSION)) {
+            hostInfo.setBiosVersion(getBiosVersion());
+        }
+        if (fields.contains(HostInfoField.OS_NAME)) {
+            hostInfo.setOsName(getOsName());
+        }
+        if (fields.contains(HostInfoField.OS_VERSION)) {
+            hostInfo.setOsVersion(getOsVersion());
+        }
+        if (fields.contains(HostInfoField.VMM_NAME)) {
+            hostInfo.setVmmName(getVmmName());
+        }
+        if (fields.contains(HostInfoField.VMM_VERSION)) {
+            hostInfo.setVmmVersion(getVmmVersion());
+        }
+        if (fields.contains(HostInfoField.PROCESSOR_FLAGS)) {
+            hostInfo.setProcessorFlags(getProcessorFlags());
+        }
+        if (fields.contains(HostInfoField.PROCESSOR_INFO)) {
+            hostInfo.setProcessorInfo(getProcessorInfo());
+        }
+        if (fields.contains(HostInfoField.HARDWARE_UUID)) {
+            hostInfo.setHardwareUuid(getHardwareUuid());
+        }
+        if (fields.contains(HostInfoField.TPM_VERSION)) {
+            hostInfo.setTpmVersion(getTpmVersion());
+        }
+        if (fields.contains(HostInfoField.TXT_STATUS)) {
+            hostInfo.setTxtEnabled(String.valueOf(getTxtStatus().equals(FeatureStatus.ENABLED.getValue())));
+        }
+        if (fields.contains(HostInfoField.TPM_ENABLED)) {
+            hostInfo.setTpmEnabled(getTpmEnabled());
+        }
+        if (fields.contains(HostInfoField.DOCKER_ENV)) {
+            hostInfo.setIsDockerEnv(isDockerEnv());
+        }
+        if (fields.contains(HostInfoField.TBOOT_STATUS)) {
+            hostInfo.setTbootInstalled(String.valueOf(getTbootStatus().equals(ComponentStatus.INSTALLED.getValue())));
+        }
+        if (fields.contains(HostInfoField.NO_OF_SOCKETS)) {
+            hostInfo.setNoOfSockets(getNoOfSockets());
+        }
+        if (fields.contains(HostInfoField.HOST_NAME)) {
+            hostInfo.setHostName(getHostName());
+        }
+        if (fields.contains(HostInfoField.TPM_ENABLED) || fields.contains(HostInfoField.TXT_STATUS)
+                || fields.contains(HostInfoField.SUEFI_STATUS) || fields.contains(HostInfoField.CBNT_STATUS)) {
+            hostInfo.setHardwareFeatures(getHardwareFeatures(fields));
+        }
+        if (fields.contains(HostInfoField.INSTALLED_COMPONENTS)) {
+            hostInfo.setInstalledComponents(getInstalledComponents());
+        }
         return hostInfo;
     }
 
-    private Map<HardwareFeature, HardwareFeatureDetails> getHardwareFeatures() throws IOException, PlatformInfoException {
+    /**
+     * Starts the probe of every field on the executor; each one fills its per-field cache.
+     */
+    private CompletableFuture<?>[] startProbes(Executor executor, Set<HostInfoField> fields) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(fields.size());
+        for (HostInfoField field : PROBE_ORDER) {
+            if (fields.contains(field)) {
+                futures.add(supplyAsync(probe(field), executor));
+            }
+        }
+        return futures.toArray(new CompletableFuture<?>[0]);
+    }
+
+    private static <T> CompletableFuture<T> supplyAsync(Probe<T> probe, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return probe.get();
+            } catch (IOException | PlatformInfoException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Same as {@link #supplyAsync} but any failure is reported as a
+     * {@link PlatformInfoException}, which is what the public async API promises.
+     */
+    private static <T> CompletableFuture<T> async(Probe<T> probe, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> complete(future, probe));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(toPlatformInfoException(e));
+        }
+        return future;
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Probe<T> probe) {
+        try {
+            future.complete(probe.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(toPlatformInfoException(e));
+        }
+    }
+
+    private static PlatformInfoException toPlatformInfoException(Throwable error) {
+        Throwable cause = error;
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof PlatformInfoException) {
+            return (PlatformInfoException) cause;
+        } else if (cause instanceof IOException) {
+            return new PlatformInfoException(ErrorCode.COMMAND_ERROR, cause.getMessage(), (IOException) cause);
+        } else if (cause instanceof Exception) {
+            return new PlatformInfoException(ErrorCode.ERROR, "Error while collecting platform information", (Exception) cause);
+        }
+        PlatformInfoException exception = new PlatformInfoException(ErrorCode.FATAL_ERROR, String.valueOf(cause));
+        exception.initCause(cause);
+        return exception;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException, PlatformInfoException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof PlatformInfoException) {
+                throw (PlatformInfoException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new PlatformInfoException(ErrorCode.ERROR, "Error while collecting platform information", e);
+        }
+    }
+
+    private Map<HardwareFeature, HardwareFeatureDetails> getHardwareFeatures(Set<HostInfoField> fields) throws IOException, PlatformInfoException {
         Map<HardwareFeature, HardwareFeatureDetails> hardwareFeatureDetails = new HashMap<>();
-        hardwareFeatureDetails.put(TPM, getTpmDetails());
-        hardwareFeatureDetails.put(TXT, getTxtDetails());
-        if (!getSuefiStatus().equals(FeatureStatus.UNSUPPORTED.getValue())) {
+        if (fields.contains(HostInfoField.TPM_ENABLED)) {
+            hardwareFeatureDetails.put(TPM, getTpmDetails());
+        }
+        if (fields.contains(HostInfoField.TXT_STATUS)) {
+            hardwareFeatureDetails.put(TXT, getTxtDetails());
+        }
+        if (fields.contains(HostInfoField.SUEFI_STATUS) && !getSuefiStatus().equals(FeatureStatus.UNSUPPORTED.getValue())) {
             hardwareFeatureDetails.put(SUEFI, getSuefiDetails());
         }
-        if (!getCbntStatus().equals(FeatureStatus.UNSUPPORTED.getValue())) {
-            hardwareFeatureDetails.put(CBNT, getCbntDetails());
+        if (fields.contains(HostInfoField.CBNT_STATUS) && !getCbntStatus().equals(FeatureStatus.UNSUPPORTED.getValue())) {
+            hardwareFeatureDetails.put(CBNT, getCbntDetails(fields.contains(HostInfoField.CBNT_PROFILE)));
         }
         return hardwareFeatureDetails;
     }
@@ -95,11 +936,13 @@ public class PlatformInfo {
         return suefi;
     }
 
-    private HardwareFeatureDetails getCbntDetails() throws IOException, PlatformInfoException {
+    private HardwareFeatureDetails getCbntDetails(boolean withProfile) throws IOException, PlatformInfoException {
         HardwareFeatureDetails cbnt = new HardwareFeatureDetails();
         cbnt.setEnabled(getCbntStatus().equals(FeatureStatus.ENABLED.getValue()));
         Map<String, String> meta = new HashMap<>();
-        meta.put("profile", getCbntProfile());
+        if (withProfile) {
+            meta.put("profile", getCbntProfile());
+        }
         //TODO: Replace dummy values
         meta.put("force_bit", "true");
         meta.put("msr", "mk ris kfm");
@@ -122,21 +965,15 @@ public class PlatformInfo {
         return tpm;
     }
 
-    String isDockerEnv;
     /**
      * Returns the Docker Env
      *
      * @return Docker Env
      */
     public String isDockerEnv() throws IOException, PlatformInfoException {
-        // cache results
-        if (isDockerEnv == null) {
-            isDockerEnv = String.valueOf(hostInfoCommand.isDockerEnv());
-        }
-        return isDockerEnv;
+        return cached(HostInfoField.DOCKER_ENV, () -> String.valueOf(hostInfoCommand.isDockerEnv()));
     }
 
-    String biosName;
     /**
      * Returns the BIOS OEM name
      *
@@ -145,14 +982,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getBiosName() throws IOException, PlatformInfoException {
-        // cache results
-        if (biosName == null) {
-            biosName = hostInfoCommand.getBiosName();
-        }
-        return biosName;
+        return cached(HostInfoField.BIOS_NAME, hostInfoCommand::getBiosName);
     }
 
-    String biosVersion;
     /**
      * Returns the BIOS Version
      *
@@ -161,13 +993,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getBiosVersion() throws IOException, PlatformInfoException {
-        if (biosVersion == null) {
-            biosVersion = hostInfoCommand.getBiosVersion();
-        }
-        return biosVersion;
+        return cached(HostInfoField.BIOS_VERSION, hostInfoCommand::getBiosVersion);
     }
 
-    String hardwareUuid;
     /**
      * Returns the Host's UUID
      *
@@ -176,13 +1004,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getHardwareUuid() throws IOException, PlatformInfoException {
-        if (hardwareUuid == null) {
-            hardwareUuid = hostInfoCommand.getHardwareUUID();
-        }
-        return hardwareUuid;
+        return cached(HostInfoField.HARDWARE_UUID, hostInfoCommand::getHardwareUUID);
     }
 
-    String osName;
     /**
      * Returns the Operating System(OS) Name
      *
@@ -191,13 +1015,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getOsName() throws IOException, PlatformInfoException {
-        if (osName == null) {
-            osName = hostInfoCommand.getOsName();
-        }
-        return osName;
+        return cached(HostInfoField.OS_NAME, hostInfoCommand::getOsName);
     }
 
-    String osVersion;
     /**
      * Returns the Operating System(OS) Version
      *
@@ -206,13 +1026,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getOsVersion() throws IOException, PlatformInfoException {
-        if (osVersion == null) {
-            osVersion = hostInfoCommand.getOsVersion();
-        }
-        return osVersion;
+        return cached(HostInfoField.OS_VERSION, hostInfoCommand::getOsVersion);
     }
 
-    String processorFlags;
     /**
      * Returns the Processor(CPU) supported Flags/Features
      *
@@ -221,13 +1037,28 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getProcessorFlags() throws IOException, PlatformInfoException {
-        if (processorFlags == null) {
-            processorFlags = String.join(" ", hostInfoCommand.getProcessorFlags());
+        return cached(HostInfoField.PROCESSOR_FLAGS, () -> String.join(" ", hostInfoCommand.getProcessorFlags()));
+    }
+
+    /**
+     * Returns the Processor(CPU) supported Flags/Features as a set, for
+     * checking individual flags such as vmx or smx without parsing the string
+     * returned by {@link #getProcessorFlags()}
+     *
+     * @return Processor Flags
+     *
+     * @since 1.4.2
+     */
+    public CpuFeatureSet getCpuFeatures() throws IOException, PlatformInfoException {
+        String flags = getProcessorFlags();
+        CpuFeatures features = cpuFeatures;
+        if (features == null || !features.flags.equals(flags)) {
+            features = new CpuFeatures(flags, CpuFeatureSet.parse(flags));
+            cpuFeatures = features;
         }
-        return processorFlags;
+        return features.set;
     }
 
-    String processorInfo;
     /**
      * Returns the Processor(CPU) Information
      *
@@ -236,13 +1067,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getProcessorInfo() throws IOException, PlatformInfoException {
-        if (processorInfo == null) {
-            processorInfo = hostInfoCommand.getProcessorInfo();
-        }
-        return processorInfo;
+        return cached(HostInfoField.PROCESSOR_INFO, hostInfoCommand::getProcessorInfo);
     }
 
-    String vmmName;
     /**
      * Returns the VMM(Hypervisor) Name
      *
@@ -251,13 +1078,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getVmmName() throws IOException, PlatformInfoException {
-        if(vmmName == null) {
-            vmmName = hostInfoCommand.getVmmName();
-        }
-        return vmmName;
+        return cached(HostInfoField.VMM_NAME, hostInfoCommand::getVmmName);
     }
 
-    String vmmVersion;
     /**
      * Returns the VMM(Hypervisor) Version
      *
@@ -266,13 +1089,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getVmmVersion() throws IOException, PlatformInfoException {
-        if (vmmVersion == null) {
-            vmmVersion = hostInfoCommand.getVmmVersion();
-        }
-        return vmmVersion;
+        return cached(HostInfoField.VMM_VERSION, hostInfoCommand::getVmmVersion);
     }
 
-    String tpmVersion;
     /**
      * Returns the TPM Chip Version
      *
@@ -281,13 +1100,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getTpmVersion() throws IOException, PlatformInfoException {
-        if (tpmVersion == null) {
-            tpmVersion = hostInfoCommand.getTpmVersion();
-        }
-        return tpmVersion;
+        return cached(HostInfoField.TPM_VERSION, hostInfoCommand::getTpmVersion);
     }
 
-    String hostName;
     /**
      * Returns the Host Name
      *
@@ -296,13 +1111,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getHostName() throws IOException, PlatformInfoException {
-        if (hostName == null) {
-            hostName = hostInfoCommand.getHostName();
-        }
-        return hostName;
+        return cached(HostInfoField.HOST_NAME, hostInfoCommand::getHostName);
     }
 
-    String numberOfSockets;
     /**
      * Returns the number of sockets
      *
@@ -311,13 +1122,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getNoOfSockets() throws IOException, PlatformInfoException {
-        if(numberOfSockets == null) {
-            numberOfSockets = String.valueOf(hostInfoCommand.getNumberOfSockets());
-        }
-        return numberOfSockets;
+        return cached(HostInfoField.NO_OF_SOCKETS, () -> String.valueOf(hostInfoCommand.getNumberOfSockets()));
     }
 
-    String tpmEnabled;
     /**
      * Returns status of tpm(enabled/disabled)
      *
@@ -326,13 +1133,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getTpmEnabled() throws IOException, PlatformInfoException {
-        if (tpmEnabled == null) {
-            tpmEnabled = String.valueOf(hostInfoCommand.getTpmEnabled());
-        }
-        return tpmEnabled;
+        return cached(HostInfoField.TPM_ENABLED, () -> String.valueOf(hostInfoCommand.getTpmEnabled()));
     }
 
-    String txtStatus;
     /**
      * Returns the status of txt(enabled/disabled)
      *
@@ -341,13 +1144,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getTxtStatus() throws IOException, PlatformInfoException {
-        if (txtStatus == null) {
-            txtStatus = String.valueOf(hostInfoCommand.getTxtStatus());
-        }
-        return txtStatus;
+        return cached(HostInfoField.TXT_STATUS, () -> String.valueOf(hostInfoCommand.getTxtStatus()));
     }
 
-    String tbootStatus;
     /**
      * Returns the status of tboot(enabled/disabled)
      *
@@ -356,13 +1155,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getTbootStatus() throws IOException, PlatformInfoException {
-        if (tbootStatus == null) {
-            tbootStatus = String.valueOf(hostInfoCommand.getTbootStatus());
-        }
-        return tbootStatus;
+        return cached(HostInfoField.TBOOT_STATUS, () -> String.valueOf(hostInfoCommand.getTbootStatus()));
     }
 
-    String cbntStatus;
     /**
      * Returns the status of cbnt(enabled/disabled/unsupported)
      *
@@ -371,13 +1166,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getCbntStatus() throws IOException, PlatformInfoException {
-        if (cbntStatus == null) {
-            cbntStatus = String.valueOf(hostInfoCommand.getCbntStatus());
-        }
-        return cbntStatus;
+        return cached(HostInfoField.CBNT_STATUS, () -> String.valueOf(hostInfoCommand.getCbntStatus()));
     }
 
-    String cbntProfile;
     /**
      * Returns the profile of cbnt(P0/P4/P5)
      *
@@ -386,13 +1177,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getCbntProfile() throws IOException, PlatformInfoException {
-        if (cbntProfile == null) {
-            cbntProfile = hostInfoCommand.getCbntProfile();
-        }
-        return cbntProfile;
+        return cached(HostInfoField.CBNT_PROFILE, hostInfoCommand::getCbntProfile);
     }
 
-    String suefiEnabled;
     /**
      * Returns the status of suefi(enabled/disabled)
      *
@@ -401,13 +1188,9 @@ public class PlatformInfo {
      * @since 1.0
      */
     public String getSuefiStatus() throws IOException, PlatformInfoException {
-        if (suefiEnabled == null) {
-            suefiEnabled = String.valueOf(hostInfoCommand.getSuefiStatus());
-        }
-        return suefiEnabled;
+        return cached(HostInfoField.SUEFI_STATUS, () -> String.valueOf(hostInfoCommand.getSuefiStatus()));
     }
 
-    Set<String> installedComponents;
     /**
      * Returns the Installed node component names
      *
@@ -416,9 +1199,195 @@ public class PlatformInfo {
      * @since 1.0
      */
     public Set<String> getInstalledComponents() throws IOException, PlatformInfoException {
-        if (installedComponents == null) {
-            installedComponents = hostInfoCommand.getInstalledComponents();
-        }
-        return installedComponents;
+        return cached(HostInfoField.INSTALLED_COMPONENTS, hostInfoCommand::getInstalledComponents);
+    }
+
+    /**
+     * Asynchronous variant of {@link #isDockerEnv()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> isDockerEnvAsync(Executor executor) {
+        return async(this::isDockerEnv, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getBiosName()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getBiosNameAsync(Executor executor) {
+        return async(this::getBiosName, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getBiosVersion()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getBiosVersionAsync(Executor executor) {
+        return async(this::getBiosVersion, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getHardwareUuid()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getHardwareUuidAsync(Executor executor) {
+        return async(this::getHardwareUuid, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getOsName()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getOsNameAsync(Executor executor) {
+        return async(this::getOsName, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getOsVersion()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getOsVersionAsync(Executor executor) {
+        return async(this::getOsVersion, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getProcessorFlags()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getProcessorFlagsAsync(Executor executor) {
+        return async(this::getProcessorFlags, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCpuFeatures()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<CpuFeatureSet> getCpuFeaturesAsync(Executor executor) {
+        return async(this::getCpuFeatures, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getProcessorInfo()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getProcessorInfoAsync(Executor executor) {
+        return async(this::getProcessorInfo, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getVmmName()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getVmmNameAsync(Executor executor) {
+        return async(this::getVmmName, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getVmmVersion()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getVmmVersionAsync(Executor executor) {
+        return async(this::getVmmVersion, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTpmVersion()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getTpmVersionAsync(Executor executor) {
+        return async(this::getTpmVersion, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getHostName()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getHostNameAsync(Executor executor) {
+        return async(this::getHostName, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getNoOfSockets()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getNoOfSocketsAsync(Executor executor) {
+        return async(this::getNoOfSockets, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTpmEnabled()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getTpmEnabledAsync(Executor executor) {
+        return async(this::getTpmEnabled, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTxtStatus()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getTxtStatusAsync(Executor executor) {
+        return async(this::getTxtStatus, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTbootStatus()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getTbootStatusAsync(Executor executor) {
+        return async(this::getTbootStatus, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCbntStatus()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getCbntStatusAsync(Executor executor) {
+        return async(this::getCbntStatus, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCbntProfile()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getCbntProfileAsync(Executor executor) {
+        return async(this::getCbntProfile, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getSuefiStatus()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<String> getSuefiStatusAsync(Executor executor) {
+        return async(this::getSuefiStatus, executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getInstalledComponents()}, run on the given executor.
+     *
+     * @since 1.4.2
+     */
+    public CompletableFuture<Set<String>> getInstalledComponentsAsync(Executor executor) {
+        return async(this::getInstalledComponents, executor);
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+/**
+ * Receives timings of the commands run by a {@link CommandLineRunner} and
+ * of the fields probed by {@link PlatformInfo}, for example to find the probe
+ * that makes a collection slow on a given host. {@link ProbeMetricsRecorder}
+ * is a ready made implementation.
+ *
+ * Methods are called synchronously on the thread that ran the command or
+ * probe, so implementations must be thread safe and fast. Times are in
+ * nanoseconds.
+ *
+ * @since 1.4.2
+ */
+public interface ProbeListener {
+
+    /**
+     * The listener that ignores everything; runners and probes skip their
+     * measurements altogether when it is set.
+     */
+    ProbeListener NONE = new ProbeListener() {
+    };
+
+    /**
+     * Called when a command completed, whatever its exit code.
+     *
+     * @param commandArgs the executable followed by its arguments, as executed
+     * @param spawnNanos time until the process was started, or -1 if the command did not start a process of its own
+     * @param runtimeNanos time until the command completed, including the spawn time
+     * @param exitCode exit code of the command
+     * @param outputBytes size of the standard output, or -1 if the runner does not report it
+     */
+    default void commandExecuted(String[] commandArgs, long spawnNanos, long runtimeNanos, int exitCode, long outputBytes) {
+    }
+
+    /**
+     * Called when a command could not be run or timed out.
+     *
+     * @param commandArgs the executable followed by its arguments, as executed
+     * @param runtimeNanos time until the failure
+     * @param error the exception thrown to the caller
+     */
+    default void commandFailed(String[] commandArgs, long runtimeNanos, Exception error) {
+    }
+
+    /**
+     * Called when a command line that already ran, or is running, in the
+     * current scope of the runner is answered with the result of that run
+     * instead of running again.
+     *
+     * @param commandArgs the executable followed by its arguments, as executed
+     * @param waitNanos time spent waiting for the result
+     */
+    default void commandReused(String[] commandArgs, long waitNanos) {
+    }
+
+    /**
+     * Called when a field was probed; values served from the cache are not reported.
+     *
+     * @param field the field
+     * @param durationNanos time taken by the probe, including its commands
+     */
+    default void fieldProbed(HostInfoField field, long durationNanos) {
+    }
+
+    /**
+     * Called when the probe of a field failed.
+     *
+     * @param field the field
+     * @param durationNanos time until the failure
+     * @param error the exception thrown to the caller
+     */
+    default void fieldFailed(HostInfoField field, long durationNanos, Exception error) {
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps histograms of the command runtimes and spawn latencies, per command
+ * line, and of the probe durations, per field, for scraping by a metrics
+ * system. Recording a field takes a few atomic increments and recording a
+ * command only adds the lookup of its command line.
+ *
+ * <pre>
+ * ProbeMetricsRecorder metrics = new ProbeMetricsRecorder();
+ * platformInfo.setProbeListener(metrics);
+ * ...
+ * metrics.getFieldDurations().get(HostInfoField.VMM_NAME).getP99(TimeUnit.MILLISECONDS);
+ * </pre>
+ *
+ * @since 1.4.2
+ */
+public final class ProbeMetricsRecorder implements ProbeListener {
+
+    /**
+     * Command lines beyond this number are counted together under
+     * {@link #OTHER_COMMANDS}, in case a caller runs commands with
+     * varying arguments such as temporary file names.
+     */
+    static final int MAX_COMMANDS = 256;
+
+    /**
+     * Key of the commands beyond {@link #MAX_COMMANDS}.
+     */
+    public static final String OTHER_COMMANDS = "other";
+
+    private final ConcurrentMap<String, CommandHistograms> commands = new ConcurrentHashMap<>();
+    private volatile LatencyHistogram[] fields = newFieldHistograms();
+
+    private static LatencyHistogram[] newFieldHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[HostInfoField.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private static final class CommandHistograms {
+        private final LatencyHistogram runtime = new LatencyHistogram();
+        private final LatencyHistogram spawn = new LatencyHistogram();
+    }
+
+    private CommandHistograms command(String[] commandArgs) {
+        String commandLine = String.join(" ", commandArgs);
+        CommandHistograms histograms = commands.get(commandLine);
+        if (histograms == null) {
+            String key = commands.size() < MAX_COMMANDS ? commandLine : OTHER_COMMANDS;
+            histograms = commands.computeIfAbsent(key, k -> new CommandHistograms());
+        }
+        return histograms;
+    }
+
+    @Override
+    public void commandExecuted(String[] commandArgs, long spawnNanos, long runtimeNanos, int exitCode, long outputBytes) {
+        CommandHistograms histograms = command(commandArgs);
+        histograms.runtime.record(runtimeNanos);
+        if (spawnNanos >= 0) {
+            histograms.spawn.record(spawnNanos);
+        }
+    }
+
+    @Override
+    public void commandFailed(String[] commandArgs, long runtimeNanos, Exception error) {
+        command(commandArgs).runtime.recordFailure(runtimeNanos);
+    }
+
+    @Override
+    public void fieldProbed(HostInfoField field, long durationNanos) {
+        fields[field.ordinal()].record(durationNanos);
+    }
+
+    @Override
+    public void fieldFailed(HostInfoField field, long durationNanos, Exception error) {
+        fields[field.ordinal()].recordFailure(durationNanos);
+    }
+
+    /**
+     * @return the runtime of each command line that was run, including failed runs
+     */
+    public Map<String, Summary> getCommandRuntimes() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        for (Map.Entry<String, CommandHistograms> command : commands.entrySet()) {
+            summaries.put(command.getKey(), new Summary(command.getValue().runtime));
+        }
+        return Collections.unmodifiableMap(summaries);
+    }
+
+    /**
+     * @return the time each command line took to start its process, for the runners that report it
+     */
+    public Map<String, Summary> getCommandSpawnLatencies() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        for (Map.Entry<String, CommandHistograms> command : commands.entrySet()) {
+            if (command.getValue().spawn.getCount() > 0) {
+                summaries.put(command.getKey(), new Summary(command.getValue().spawn));
+            }
+        }
+        return Collections.unmodifiableMap(summaries);
+    }
+
+    /**
+     * @return the probe duration of each field that was probed, including failed probes
+     */
+    public Map<HostInfoField, Summary> getFieldDurations() {
+        Map<HostInfoField, Summary> summaries = new EnumMap<>(HostInfoField.class);
+        LatencyHistogram[] histograms = fields;
+        for (HostInfoField field : HostInfoField.values()) {
+            if (histograms[field.ordinal()].getCount() > 0) {
+                summaries.put(field, new Summary(histograms[field.ordinal()]));
+            }
+        }
+        return Collections.unmodifiableMap(summaries);
+    }
+
+    /**
+     * Drops everything recorded so far.
+     */
+    public void reset() {
+        commands.clear();
+        fields = newFieldHistograms();
+    }
+
+    /**
+     * Count and percentiles of a histogram at the time it was read.
+     */
+    public static final class Summary {
+
+        private final long count;
+        private final long failures;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        private Summary(LatencyHistogram histogram) {
+            this.count = histogram.getCount();
+            this.failures = histogram.getFailures();
+            this.p50Nanos = histogram.getValueAtQuantile(0.50);
+            this.p99Nanos = histogram.getValueAtQuantile(0.99);
+            this.maxNanos = histogram.getMax();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return how many of the recorded runs failed
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getP50(TimeUnit unit) {
+            return unit.convert(p50Nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getP99(TimeUnit unit) {
+            return unit.convert(p99Nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getMax(TimeUnit unit) {
+            return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d failures=%d p50=%dus p99=%dus max=%dus", count, failures,
+                    TimeUnit.NANOSECONDS.toMicros(p50Nanos), TimeUnit.NANOSECONDS.toMicros(p99Nanos),
+                    TimeUnit.NANOSECONDS.toMicros(maxNanos));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the processor flags from /proc/cpuinfo without forking a process.
+ *
+ * The file holds one block per logical CPU, which makes it several hundred KB
+ * on large hosts; the reader stops as soon as the flags line of the first
+ * processor has been seen.
+ */
+final class ProcCpuInfo {
+
+    private static final String FLAGS = "flags";
+
+    private ProcCpuInfo() {
+    }
+
+    /**
+     * Returns the flags of the first processor listed in the given cpuinfo
+     * file, or an empty array if the file has no flags line.
+     *
+     * @param cpuInfo path of /proc/cpuinfo
+     * @return processor flags in the order listed by the kernel
+     * @throws IOException if the file cannot be read
+     */
+    static String[] readFlags(Path cpuInfo) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(cpuInfo, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(':');
+                if (separator > 0 && isKey(line, separator, FLAGS)) {
+                    return tokenize(line, separator + 1);
+                }
+            }
+        }
+        return new String[0];
+    }
+
+    /**
+     * Checks whether the text before the separator is the given key, ignoring
+     * case and the tab/space padding used by the kernel.
+     */
+    private static boolean isKey(String line, int separator, String key) {
+        int end = separator;
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end == key.length() && line.regionMatches(true, 0, key, 0, end);
+    }
+
+    private static String[] tokenize(String line, int from) {
+        List<String> tokens = new ArrayList<>();
+        int length = line.length();
+        int i = from;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                tokens.add(line.substring(start, i));
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+}
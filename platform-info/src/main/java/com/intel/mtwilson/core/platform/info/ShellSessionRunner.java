@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.PlatformInfoException;
+import com.intel.mtwilson.util.exec.Result;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs commands in one long-lived shell instead of forking a process per
+ * command. Each command line is written to the shell's stdin followed by
+ * printf statements that write a random marker and the exit status to stdout
+ * and the marker to stderr, which is how the output of one command is told
+ * apart from the next.
+ *
+ * The shell is started on first use and restarted if it dies. Commands are
+ * executed one at a time; concurrent callers wait for each other. Close the
+ * runner to end the shell.
+ *
+ * Arguments are passed verbatim (single quoted), so the handleQuotes flag
+ * has no effect. An exit status of 127 (command not found) is reported as an
+ * IOException, like a failed exec. Commands with a timeout are run through
+ * timeout(1), which kills the command and its children but leaves the shell
+ * running.
+ */
+public class ShellSessionRunner extends CommandLineRunner implements Closeable {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ShellSessionRunner.class);
+    private static final int COMMAND_NOT_FOUND = 127;
+    private static final int TIMED_OUT = 124;
+    private static final int KILLED = 128 + 9;
+    private static final long STDERR_TIMEOUT_SECONDS = 10;
+    private static final byte[] END_OF_STDERR = new byte[0];
+
+    private final String[] shell;
+    private final String marker = "__platform_info_" + UUID.randomUUID().toString().replace("-", "") + "__";
+    private final byte[] markerBytes = marker.getBytes(StandardCharsets.US_ASCII);
+
+    private Process process;
+    private OutputStream stdin;
+    private InputStream stdout;
+    private BlockingQueue<byte[]> stderrFrames;
+    private boolean closed;
+
+    /**
+     * Runs the commands in /bin/sh.
+     */
+    public ShellSessionRunner() {
+        this("/bin/sh");
+    }
+
+    /**
+     * @param shell the command line that starts a shell reading commands from
+     *              stdin, for example "chroot", "/host", "/bin/sh"
+     */
+    public ShellSessionRunner(String... shell) {
+        this.shell = shell.clone();
+    }
+
+    @Override
+    protected synchronized Result execute(String[] commandArgs, boolean handleQuotes, long timeoutMillis) throws PlatformInfoException, IOException {
+        if (closed) {
+            throw new IOException("Shell session is closed");
+        }
+        if (process == null || !process.isAlive()) {
+            start();
+        }
+        try {
+            long start = System.nanoTime();
+            stdin.write(script(commandArgs, timeoutMillis));
+            stdin.flush();
+            FrameBuffer out = new FrameBuffer();
+            readFrame(stdout, out);
+            int exitCode = readExitCode(stdout);
+            byte[] err = stderrFrames.poll(STDERR_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (err == null || err == END_OF_STDERR) {
+                throw new IOException("No stderr frame from the shell session");
+            }
+            if (timeoutMillis > NO_TIMEOUT && (exitCode == TIMED_OUT || exitCode == KILLED)
+                    && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= timeoutMillis) {
+                throw timeout(commandArgs, timeoutMillis);
+            }
+            if (exitCode == COMMAND_NOT_FOUND) {
+                throw new IOException("Cannot run program \"" + commandArgs[0] + "\": "
+                        + new String(err, StandardCharsets.UTF_8).trim());
+            }
+            outputRead(out.size());
+            return new Result(exitCode, out.toByteArray(), err);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+            throw new IOException("Interrupted while running " + Arrays.toString(commandArgs), e);
+        } catch (IOException e) {
+            stop(); // the framing is lost, start over with the next command
+            throw e;
+        }
+    }
+
+    private void start() throws IOException {
+        log.debug("Starting shell session {}", Arrays.toString(shell));
+        process = new ProcessBuilder(shell).start();
+        stdin = process.getOutputStream();
+        stdout = new BufferedInputStream(process.getInputStream());
+        stderrFrames = new LinkedBlockingQueue<>();
+        Thread pump = new Thread(new StderrPump(process.getErrorStream(), stderrFrames), "platform-info-shell-stderr");
+        pump.setDaemon(true);
+        pump.start();
+    }
+
+    private void stop() {
+        if (process != null) {
+            process.destroy();
+            process = null;
+        }
+    }
+
+    /**
+     * Builds: [timeout -s KILL SECONDS] 'cmd' 'arg'... &lt;/dev/null; printf '%s %d\n' MARKER $?; printf '%s' MARKER &gt;&amp;2
+     */
+    private byte[] script(String[] commandArgs, long timeoutMillis) {
+        StringBuilder builder = new StringBuilder();
+        if (timeoutMillis > NO_TIMEOUT) {
+            builder.append("timeout -s KILL ").append(timeoutMillis / 1000).append('.')
+                    .append(String.format("%03d", timeoutMillis % 1000)).append(' ');
+        }
+        for (String arg : commandArgs) {
+            builder.append('\'').append(arg.replace("'", "'\\''")).append("' ");
+        }
+        builder.append("</dev/null; printf '%s %d\\n' ").append(marker).append(" $?; printf '%s' ")
+                .append(marker).append(" >&2\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the stream to the buffer until the marker, which is consumed
+     * but not copied.
+     */
+    private void readFrame(InputStream in, FrameBuffer out) throws IOException {
+        byte last = markerBytes[markerBytes.length - 1];
+        int b;
+        while ((b = in.read()) >= 0) {
+            out.write(b);
+            if (b == last && out.removeSuffix(markerBytes)) {
+                return;
+            }
+        }
+        throw new EOFException("Shell session ended");
+    }
+
+    private static final class FrameBuffer extends ByteArrayOutputStream {
+
+        /**
+         * Removes the suffix from the buffer if the buffer ends with it.
+         */
+        private boolean removeSuffix(byte[] suffix) {
+            if (count < suffix.length) {
+                return false;
+            }
+            int offset = count - suffix.length;
+            for (int i = 0; i < suffix.length; i++) {
+                if (buf[offset + i] != suffix[i]) {
+                    return false;
+                }
+            }
+            count = offset;
+            return true;
+        }
+    }
+
+    private static int readExitCode(InputStream in) throws IOException {
+        int exitCode = 0;
+        int b = in.read();
+        if (b != ' ') {
+            throw new IOException("Unexpected shell session output");
+        }
+        while ((b = in.read()) >= '0' && b <= '9') {
+            exitCode = exitCode * 10 + (b - '0');
+        }
+        if (b != '\n') {
+            throw new IOException("Unexpected shell session output");
+        }
+        return exitCode;
+    }
+
+    /**
+     * Reads stderr continuously, so that a command writing a lot to stderr
+     * cannot block while stdout is read, and queues the output of each
+     * command.
+     */
+    private final class StderrPump implements Runnable {
+
+        private final InputStream in;
+        private final BlockingQueue<byte[]> frames;
+
+        private StderrPump(InputStream in, BlockingQueue<byte[]> frames) {
+            this.in = new BufferedInputStream(in);
+            this.frames = frames;
+        }
+
+        @Override
+        public void run() {
+            FrameBuffer out = new FrameBuffer();
+            try {
+                while (true) {
+                    readFrame(in, out);
+                    frames.add(out.toByteArray());
+                    out.reset();
+                }
+            } catch (IOException e) {
+                frames.add(END_OF_STDERR);
+            }
+        }
+    }
+
+    /**
+     * Ends the shell.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (process != null) {
+            try {
+                stdin.write("exit\n".getBytes(StandardCharsets.US_ASCII));
+                stdin.close();
+                if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            } catch (IOException e) {
+                process.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+            }
+            process = null;
+        }
+    }
+}
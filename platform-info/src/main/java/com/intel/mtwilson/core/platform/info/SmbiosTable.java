@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-process parser for the SMBIOS (DMI) table the kernel exports under
+ * /sys/firmware/dmi/tables. The structures are walked once and the BIOS
+ * (type 0), system (type 1) and processor (type 4) fields are kept, which is
+ * what dmidecode would otherwise be forked for.
+ *
+ * Both files are readable by root only, like dmidecode itself.
+ */
+final class SmbiosTable {
+
+    private static final int TYPE_BIOS = 0;
+    private static final int TYPE_SYSTEM = 1;
+    private static final int TYPE_PROCESSOR = 4;
+    private static final int TYPE_END_OF_TABLE = 127;
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * A processor socket described by a type 4 structure.
+     */
+    static final class Processor {
+        private final String socketDesignation;
+        private final String id;
+        private final boolean populated;
+
+        Processor(String socketDesignation, String id, boolean populated) {
+            this.socketDesignation = socketDesignation;
+            this.id = id;
+            this.populated = populated;
+        }
+
+        String getSocketDesignation() {
+            return socketDesignation;
+        }
+
+        /**
+         * @return the processor ID formatted like dmidecode, for example "E4 06 03 00 FF FB EB BF"
+         */
+        String getId() {
+            return id;
+        }
+
+        boolean isPopulated() {
+            return populated;
+        }
+    }
+
+    private int majorVersion;
+    private int minorVersion;
+    private String biosVendor;
+    private String biosVersion;
+    private String systemManufacturer;
+    private String systemProductName;
+    private String systemUuid;
+    private final List<Processor> processors = new ArrayList<>();
+
+    private SmbiosTable() {
+    }
+
+    /**
+     * Reads and parses the table.
+     *
+     * @param tables directory holding the DMI and smbios_entry_point files, normally /sys/firmware/dmi/tables
+     * @return the parsed table
+     * @throws IOException if the files cannot be read or the entry point is not recognized
+     */
+    static SmbiosTable read(Path tables) throws IOException {
+        return parse(readFully(tables.resolve("smbios_entry_point")), readFully(tables.resolve("DMI")));
+    }
+
+    static SmbiosTable parse(ByteBuffer entryPoint, ByteBuffer table) throws IOException {
+        SmbiosTable smbios = new SmbiosTable();
+        smbios.parseEntryPoint(entryPoint.order(ByteOrder.LITTLE_ENDIAN));
+        smbios.parseStructures(table.order(ByteOrder.LITTLE_ENDIAN));
+        return smbios;
+    }
+
+    private static ByteBuffer readFully(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // sysfs reports the real size of the binary attributes
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(channel.size(), 32));
+            while (channel.read(buffer) > 0) {
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private void parseEntryPoint(ByteBuffer entryPoint) throws IOException {
+        if (startsWith(entryPoint, "_SM3_") && entryPoint.limit() >= 0x18) {
+            majorVersion = entryPoint.get(0x07) & 0xff;
+            minorVersion = entryPoint.get(0x08) & 0xff;
+        } else if (startsWith(entryPoint, "_SM_") && entryPoint.limit() >= 0x1f) {
+            majorVersion = entryPoint.get(0x06) & 0xff;
+            minorVersion = entryPoint.get(0x07) & 0xff;
+        } else if (startsWith(entryPoint, "_DMI_")) {
+            majorVersion = 2;
+            minorVersion = 0;
+        } else {
+            throw new IOException("Unrecognized SMBIOS entry point");
+        }
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, String anchor) {
+        if (buffer.limit() < anchor.length()) {
+            return false;
+        }
+        for (int i = 0; i < anchor.length(); i++) {
+            if (buffer.get(i) != anchor.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void parseStructures(ByteBuffer table) {
+        int limit = table.limit();
+        int position = 0;
+        while (position + HEADER_LENGTH <= limit) {
+            int type = table.get(position) & 0xff;
+            int length = table.get(position + 1) & 0xff;
+            if (length < HEADER_LENGTH || position + length > limit) {
+                break; // corrupt table
+            }
+            int strings = position + length;
+            int next = strings;
+            // the string-set ends with a double NUL, also when it is empty
+            while (next + 1 < limit && (table.get(next) != 0 || table.get(next + 1) != 0)) {
+                next++;
+            }
+            next += 2;
+
+            switch (type) {
+                case TYPE_BIOS:
+                    biosVendor = string(table, position, length, 0x04, strings, limit);
+                    biosVersion = string(table, position, length, 0x05, strings, limit);
+                    break;
+                case TYPE_SYSTEM:
+                    systemManufacturer = string(table, position, length, 0x04, strings, limit);
+                    systemProductName = string(table, position, length, 0x05, strings, limit);
+                    if (length >= 0x19) {
+                        systemUuid = uuid(table, position + 0x08);
+                    }
+                    break;
+                case TYPE_PROCESSOR:
+                    if (length >= 0x1a) {
+                        boolean populated = (table.get(position + 0x18) & 0x40) != 0;
+                        processors.add(new Processor(string(table, position, length, 0x04, strings, limit),
+                                hex(table, position + 0x08, 8), populated));
+                    }
+                    break;
+                case TYPE_END_OF_TABLE:
+                    return;
+                default:
+                    break;
+            }
+            position = next;
+        }
+    }
+
+    /**
+     * Resolves a string reference; the byte at the offset is the 1-based index
+     * into the string-set following the formatted area.
+     */
+    private static String string(ByteBuffer table, int position, int length, int offset, int strings, int limit) {
+        if (offset >= length) {
+            return null;
+        }
+        int index = table.get(position + offset) & 0xff;
+        if (index == 0) {
+            return null;
+        }
+        int start = strings;
+        for (int i = 1; start < limit; i++) {
+            int end = start;
+            while (end < limit && table.get(end) != 0) {
+                end++;
+            }
+            if (end == start) {
+                return null; // end of the string-set
+            }
+            if (i == index) {
+                byte[] value = new byte[end - start];
+                for (int j = 0; j < value.length; j++) {
+                    value[j] = table.get(start + j);
+                }
+                return new String(value, StandardCharsets.ISO_8859_1).trim();
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static String hex(ByteBuffer table, int offset, int count) {
+        StringBuilder builder = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            appendHex(builder, table.get(offset + i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Formats the system UUID the way dmidecode does. From SMBIOS 2.6 on the
+     * first three fields are stored little-endian.
+     */
+    private String uuid(ByteBuffer table, int offset) {
+        boolean allZero = true;
+        boolean allOnes = true;
+        for (int i = 0; i < 16; i++) {
+            byte b = table.get(offset + i);
+            allZero &= b == 0;
+            allOnes &= b == (byte) 0xff;
+        }
+        if (allZero || allOnes) {
+            return null; // "Not Settable" / "Not Present"
+        }
+        boolean littleEndian = majorVersion > 2 || (majorVersion == 2 && minorVersion >= 6);
+        int[] order = littleEndian
+                ? new int[]{3, 2, 1, 0, 5, 4, 7, 6, 8, 9, 10, 11, 12, 13, 14, 15}
+                : new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+        StringBuilder builder = new StringBuilder(36);
+        for (int i = 0; i < 16; i++) {
+            if (i == 4 || i == 6 || i == 8 || i == 10) {
+                builder.append('-');
+            }
+            appendHex(builder, table.get(offset + order[i]));
+        }
+        return builder.toString();
+    }
+
+    private static void appendHex(StringBuilder builder, byte b) {
+        builder.append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xf, 16)));
+        builder.append(Character.toUpperCase(Character.forDigit(b & 0xf, 16)));
+    }
+
+    String getVersion() {
+        return majorVersion + "." + minorVersion;
+    }
+
+    String getBiosVendor() {
+        return biosVendor;
+    }
+
+    String getBiosVersion() {
+        return biosVersion;
+    }
+
+    String getSystemManufacturer() {
+        return systemManufacturer;
+    }
+
+    String getSystemProductName() {
+        return systemProductName;
+    }
+
+    String getSystemUuid() {
+        return systemUuid;
+    }
+
+    /**
+     * @return every processor structure in table order, one per socket
+     */
+    List<Processor> getProcessors() {
+        return Collections.unmodifiableList(processors);
+    }
+}
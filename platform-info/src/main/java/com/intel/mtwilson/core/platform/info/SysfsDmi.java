@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * DMI attributes exported by the kernel under /sys/class/dmi/id, for example
+ * bios_vendor, bios_version and product_uuid. Reading them is much cheaper
+ * than running dmidecode, which scans the whole SMBIOS table every time.
+ */
+final class SysfsDmi {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SysfsDmi.class);
+
+    private final Path directory;
+
+    /**
+     * @param directory the DMI id directory, normally /sys/class/dmi/id
+     */
+    SysfsDmi(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the value of the attribute, or null if the file is missing,
+     * unreadable (product_uuid is readable only by root) or empty.
+     *
+     * @param attribute file name under the DMI id directory
+     * @return the trimmed value or null
+     */
+    String read(String attribute) {
+        Path file = directory.resolve(attribute);
+        if (!Files.isReadable(file)) {
+            log.debug("DMI attribute {} is not readable", file);
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            String value = reader.readLine();
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            return value.trim();
+        } catch (IOException e) {
+            log.debug("Cannot read DMI attribute {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.PlatformInfoException;
+import com.intel.mtwilson.core.platform.info.mock.HostInfoCommandMockLinux;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestCollectionTrace {
+
+    private HostInfoCommandMockLinux mockCmd;
+    private PlatformInfo platformInfo;
+
+    @Before
+    public void setUp() {
+        mockCmd = new HostInfoCommandMockLinux();
+        platformInfo = new PlatformInfo(mockCmd);
+    }
+
+    @Test
+    public void sourcesAndCommands() throws IOException, PlatformInfoException {
+        CollectionTrace trace = new CollectionTrace();
+        platformInfo.getHostInfo(trace);
+
+        assertThat(trace.getField(HostInfoField.HARDWARE_UUID).getSource(), is(CollectionTrace.Source.FILE));
+        CollectionTrace.FieldTrace vmmName = trace.getField(HostInfoField.VMM_NAME);
+        assertThat(vmmName.getSource(), is(CollectionTrace.Source.COMMAND));
+        assertThat(vmmName.getCommands().get(0).getCommandLine(), is("docker -v"));
+        assertThat(vmmName.getCommands().get(0).getExitCode(), is(0));
+        CollectionTrace.FieldTrace vmmVersion = trace.getField(HostInfoField.VMM_VERSION);
+        assertThat(vmmVersion.getCommands().get(0).isReused(), is(true));
+
+        // sequential probes are all on the critical path
+        assertThat(trace.getCriticalPath().size(), is(HostInfoField.values().length));
+        assertThat(mockCmd.getRunner().getProbeListener(), is(ProbeListener.NONE));
+
+        CollectionTrace cached = new CollectionTrace();
+        platformInfo.getHostInfo(cached);
+        assertThat(cached.getField(HostInfoField.HARDWARE_UUID).getSource(), is(CollectionTrace.Source.CACHE));
+        assertThat(cached.getField(HostInfoField.HARDWARE_UUID).isCached(), is(true));
+    }
+
+    @Test
+    public void criticalPathOfParallelCollection() throws IOException, PlatformInfoException {
+        mockCmd.getRunner().setDelay("hostname", 300);
+        platformInfo.setParallelism(4);
+        CollectionTrace trace = new CollectionTrace();
+        platformInfo.getHostInfo(trace);
+
+        List<CollectionTrace.FieldTrace> path = trace.getCriticalPath();
+        assertThat(path.get(path.size() - 1).getField(), is(HostInfoField.HOST_NAME));
+        assertThat(trace.getField(HostInfoField.HOST_NAME).getDuration(TimeUnit.MILLISECONDS) >= 300, is(true));
+        assertThat(trace.getDuration(TimeUnit.MILLISECONDS) >= 300, is(true));
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.ErrorCode;
+import com.intel.mtwilson.core.common.PlatformInfoException;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestCommandLineRunner {
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(new File("/bin/sleep").canExecute() || new File("/usr/bin/sleep").canExecute());
+    }
+
+    private static void assertTimesOut(CommandLineRunner runner, String... args) throws IOException {
+        long start = System.nanoTime();
+        try {
+            runner.executeCommand("sleep", args);
+            Assert.fail("sleep was not killed");
+        } catch (PlatformInfoException e) {
+            assertThat(e.getErrorCode(), is(ErrorCode.COMMAND_TIMEOUT));
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 4000, is(true));
+    }
+
+    private static void assumeProcessGroups() {
+        Assume.assumeTrue(new File("/bin/sh").canExecute() && new File("/proc/self/stat").canRead());
+        Assume.assumeTrue(new File("/usr/bin/timeout").canExecute() || new File("/bin/timeout").canExecute());
+    }
+
+    /**
+     * Asserts that every process whose pid the script wrote to the pid file
+     * exits within a few seconds, well before the sleep of the script ends.
+     */
+    private static void assertKilled(File pidFile) throws IOException {
+        List<String> pids = Files.readAllLines(pidFile.toPath(), StandardCharsets.US_ASCII);
+        assertThat(pids.isEmpty(), is(false));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (String pid : pids) {
+            while (isRunning(pid.trim()) && System.nanoTime() < deadline) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            assertThat("process " + pid + " is running", isRunning(pid.trim()), is(false));
+        }
+    }
+
+    private static boolean isRunning(String pid) throws IOException {
+        File stat = new File("/proc/" + pid + "/stat");
+        String line;
+        try {
+            line = new String(Files.readAllBytes(stat.toPath()), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            if (!stat.exists()) {
+                return false;
+            }
+            throw e;
+        }
+        // the state follows the parenthesized command name; a zombie has exited but is not reaped yet
+        return line.charAt(line.lastIndexOf(')') + 2) != 'Z';
+    }
+
+    @Test
+    public void commandTimeout() throws IOException, PlatformInfoException {
+        CommandLineRunner runner = new CommandLineRunner();
+        runner.setTimeout("sleep", 200, TimeUnit.MILLISECONDS);
+        assertTimesOut(runner, "10");
+        assertThat(runner.executeCommand("echo", "done").getStdout().trim(), is("done"));
+    }
+
+    @Test
+    public void defaultTimeout() throws IOException, PlatformInfoException {
+        CommandLineRunner runner = new CommandLineRunner();
+        runner.setDefaultTimeout(200, TimeUnit.MILLISECONDS);
+        assertTimesOut(runner, "10");
+    }
+
+    @Test
+    public void scopeDeadline() throws IOException, PlatformInfoException {
+        CommandLineRunner runner = new CommandLineRunner();
+        try (CommandLineRunner.Scope scope = runner.openScope(300, TimeUnit.MILLISECONDS)) {
+            assertThat(runner.executeCommand("sleep", "0").getExitCode(), is(0));
+            assertThat(scope.isDeadlineExceeded(), is(false));
+            assertTimesOut(runner, "10");
+            assertThat(scope.isDeadlineExceeded(), is(true));
+            assertTimesOut(runner, "0.1");
+        }
+    }
+
+    @Test
+    public void timeoutKillsBackgroundChildren() throws IOException, PlatformInfoException {
+        assumeProcessGroups();
+        CommandLineRunner runner = new CommandLineRunner();
+        runner.setDefaultTimeout(500, TimeUnit.MILLISECONDS);
+        File script = File.createTempFile("background", ".sh");
+        File pidFile = File.createTempFile("background", ".pid");
+        try {
+            Files.write(script.toPath(), ("echo $$ > " + pidFile + "\nsleep 30 &\necho $! >> " + pidFile + "\nsleep 30\n").getBytes(StandardCharsets.US_ASCII));
+            CommandLineRunner.Scope scope = runner.openScope(20, TimeUnit.SECONDS);
+            try {
+                try {
+                    runner.executeCommand("sh", script.getAbsolutePath());
+                    Assert.fail("sh was not killed");
+                } catch (PlatformInfoException e) {
+                    assertThat(e.getErrorCode(), is(ErrorCode.COMMAND_TIMEOUT));
+                }
+                assertThat(scope.isDeadlineExceeded(), is(false));
+            } finally {
+                scope.close();
+            }
+            assertKilled(pidFile);
+        } finally {
+            script.delete();
+            pidFile.delete();
+        }
+    }
+
+    @Test
+    public void deadlineKillsBackgroundChildren() throws IOException, PlatformInfoException {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+        CommandLineRunner runner = new CommandLineRunner();
+        File script = File.createTempFile("background", ".sh");
+        try {
+            Files.write(script.toPath(), "sleep 6 &\nsleep 6\n".getBytes(StandardCharsets.US_ASCII));
+            CommandLineRunner.Scope scope = runner.openScope(500, TimeUnit.MILLISECONDS);
+            try {
+                try {
+                    runner.executeCommand("sh", script.getAbsolutePath());
+                    Assert.fail("sh was not killed");
+                } catch (PlatformInfoException e) {
+                    assertThat(e.getErrorCode(), is(ErrorCode.COMMAND_TIMEOUT));
+                }
+                assertThat(scope.isDeadlineExceeded(), is(true));
+            } finally {
+                scope.close();
+            }
+        } finally {
+            script.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void missingCommandWithTimeout() throws IOException, PlatformInfoException {
+        CommandLineRunner runner = new CommandLineRunner();
+        runner.setDefaultTimeout(2, TimeUnit.SECONDS);
+        runner.executeCommand("platform-info-no-such-command");
+    }
+
+    @Test
+    public void shellSessionTimeout() throws IOException, PlatformInfoException {
+        Assume.assumeTrue(new File("/usr/bin/timeout").canExecute() || new File("/bin/timeout").canExecute());
+        try (ShellSessionRunner runner = new ShellSessionRunner()) {
+            runner.setTimeout("sleep", 200, TimeUnit.MILLISECONDS);
+            assertTimesOut(runner, "10");
+            assertThat(runner.executeCommand("echo", "done").getStdout(), is("done\n"));
+        }
+    }
+
+    @Test
+    public void probeListenerReceivesCommandTimings() throws IOException, PlatformInfoException {
+        final long[] reported = new long[4];
+        CommandLineRunner runner = new CommandLineRunner();
+        runner.setProbeListener(new ProbeListener() {
+            @Override
+            public void commandExecuted(String[] commandArgs, long spawnNanos, long runtimeNanos, int exitCode, long outputBytes) {
+                reported[0] = spawnNanos;
+                reported[1] = runtimeNanos;
+                reported[2] = exitCode;
+                reported[3] = outputBytes;
+            }
+        });
+        assertThat(runner.executeCommand("echo", "done").getStdout().trim(), is("done"));
+        assertThat(reported[0] > 0, is(true));
+        assertThat(reported[1] >= reported[0], is(true));
+        assertThat(reported[2], is(0L));
+        assertThat(reported[3], is(5L));
+    }
+
+    @Test
+    public void streamingStopsTheCommand() throws IOException, PlatformInfoException {
+        Assume.assumeTrue(new File("/bin/sh").canExecute() && new File("/proc/self/stat").canRead());
+        CommandLineRunner runner = new CommandLineRunner();
+        List<String> lines = new ArrayList<>();
+        File script = File.createTempFile("stream", ".sh");
+        File pidFile = File.createTempFile("stream", ".pid");
+        try {
+            Files.write(script.toPath(), ("echo $$ > " + pidFile + "\nprintf 'Type: 1\\r\\nID: 2\\n'\nexec sleep 30\n").getBytes(StandardCharsets.US_ASCII));
+            runner.streamCommand(line -> lines.add(line) && !line.equals("ID: 2"), "sh", script.getAbsolutePath());
+            assertThat(lines, is(Arrays.asList("Type: 1", "ID: 2")));
+            assertKilled(pidFile);
+        } finally {
+            script.delete();
+            pidFile.delete();
+        }
+
+        lines.clear();
+        assertThat(runner.streamCommand(lines::add, "printf", "a\\n\\nb").getExitCode(), is(0));
+        assertThat(lines, is(Arrays.asList("a", "", "b")));
+    }
+
+    @Test
+    public void streamingStopsBackgroundChildren() throws IOException, PlatformInfoException {
+        assumeProcessGroups();
+        CommandLineRunner runner = new CommandLineRunner();
+        List<String> lines = new ArrayList<>();
+        File script = File.createTempFile("stream", ".sh");
+        File pidFile = File.createTempFile("stream", ".pid");
+        try {
+            // the background sleep holds the output open after sh is killed
+            Files.write(script.toPath(), ("echo $$ > " + pidFile + "\nsleep 30 &\necho $! >> " + pidFile + "\nprintf 'Type: 1\\nID: 2\\n'\nsleep 30\n").getBytes(StandardCharsets.US_ASCII));
+            int exitCode = runner.streamCommand(line -> lines.add(line) && !line.equals("Type: 1"), "sh", script.getAbsolutePath()).getExitCode();
+            assertThat(lines, is(Arrays.asList("Type: 1")));
+            assertThat(exitCode, is(CommandLineRunner.STOPPED));
+            assertKilled(pidFile);
+        } finally {
+            script.delete();
+            pidFile.delete();
+        }
+    }
+
+    @Test
+    public void streamingReusesScopeResults() throws IOException, PlatformInfoException {
+        CommandLineRunner runner = new CommandLineRunner();
+        List<String> lines = new ArrayList<>();
+        final int[] executed = new int[1];
+        runner.setProbeListener(new ProbeListener() {
+            @Override
+            public void commandExecuted(String[] commandArgs, long spawnNanos, long runtimeNanos, int exitCode, long outputBytes) {
+                executed[0]++;
+            }
+        });
+        CommandLineRunner.Scope scope = runner.openScope();
+        try {
+            runner.executeCommand("echo", "done");
+            runner.streamCommand(lines::add, "echo", "done");
+        } finally {
+            scope.close();
+        }
+        assertThat(lines, is(Arrays.asList("done")));
+        assertThat(executed[0], is(1));
+    }
+}
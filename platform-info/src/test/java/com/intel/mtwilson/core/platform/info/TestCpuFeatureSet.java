@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.junit.*;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestCpuFeatureSet {
+
+    @Test
+    public void has() {
+        CpuFeatureSet set = CpuFeatureSet.parse("fpu vme vmx smx aes x-unknown-flag");
+        assertThat(set.has("vmx"), is(true));
+        assertThat(set.has("smx"), is(true));
+        assertThat(set.has("x-unknown-flag"), is(true));
+        assertThat(set.has("svm"), is(false));
+        assertThat(set.has("never-seen-flag"), is(false));
+        assertThat(set.size(), is(6));
+    }
+
+    @Test
+    public void setOperations() {
+        CpuFeatureSet a = CpuFeatureSet.of("vmx", "smx", "aes");
+        CpuFeatureSet b = CpuFeatureSet.of("smx", "avx2");
+        assertThat(a.union(b), is(CpuFeatureSet.of("vmx", "smx", "aes", "avx2")));
+        assertThat(a.intersection(b), is(CpuFeatureSet.of("smx")));
+        assertThat(a.difference(b), is(CpuFeatureSet.of("vmx", "aes")));
+        assertThat(a.containsAll(CpuFeatureSet.of("vmx", "aes")), is(true));
+        assertThat(a.containsAll(b), is(false));
+        assertThat(a.intersection(CpuFeatureSet.of("avx2")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void unknownFlagsBelongToTheirSet() {
+        for (int i = 0; i < 3000; i++) {
+            CpuFeatureSet set = CpuFeatureSet.parse("vmx z-flag-" + i + " a-flag-" + i);
+            assertThat(set.has("z-flag-" + i), is(true));
+            assertThat(set.has("z-flag-" + (i + 1)), is(false));
+        }
+        CpuFeatureSet a = CpuFeatureSet.of("vmx", "b-flag", "a-flag");
+        CpuFeatureSet b = CpuFeatureSet.of("a-flag", "c-flag");
+        assertThat(a.union(b).toString(), is("vmx a-flag b-flag c-flag"));
+        assertThat(a.intersection(b), is(CpuFeatureSet.of("a-flag")));
+        assertThat(a.difference(b), is(CpuFeatureSet.of("vmx", "b-flag")));
+        assertThat(a.containsAll(CpuFeatureSet.of("b-flag", "vmx")), is(true));
+        assertThat(a.containsAll(b), is(false));
+    }
+
+    @Test
+    public void toStringUsesDictionaryOrder() {
+        assertThat(CpuFeatureSet.parse(" vmx  fpu\tsse ").toString(), is("fpu sse vmx"));
+        assertThat(CpuFeatureSet.parse("").toString(), is(""));
+    }
+
+    @Test
+    public void encodingRoundTrip() {
+        CpuFeatureSet set = CpuFeatureSet.parse("fpu vme de pse tsc msr vmx smx aes avx512f tdx_host_platform y-unknown-flag");
+        byte[] encoded = set.toByteArray();
+        assertThat(CpuFeatureSet.fromByteArray(encoded), is(set));
+        assertThat(CpuFeatureSet.fromByteArray(CpuFeatureSet.parse("").toByteArray()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void encodingIsStable() {
+        // bit 0 is fpu, bit 5 is msr; no other flags
+        assertThat(CpuFeatureSet.fromByteArray(new byte[]{1, 1, 0x21, 0, 0, 0, 0, 0, 0, 0, 0}),
+                is(CpuFeatureSet.of("fpu", "msr")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedEncoding() {
+        CpuFeatureSet.fromByteArray(new byte[]{1, 1, 0x21});
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.PlatformInfoException;
+import com.intel.mtwilson.core.common.model.HardwareFeature;
+import com.intel.mtwilson.core.common.model.HardwareFeatureDetails;
+import com.intel.mtwilson.core.common.model.HostInfo;
+import com.intel.mtwilson.core.platform.info.mock.HostInfoCommandMockLinux;
+import org.junit.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+public class TestHostInfoCodec {
+
+    private static void assertSameHostInfo(HostInfo actual, HostInfo expected) {
+        assertThat(actual.getBiosName(), is(expected.getBiosName()));
+        assertThat(actual.getBiosVersion(), is(expected.getBiosVersion()));
+        assertThat(actual.getOsName(), is(expected.getOsName()));
+        assertThat(actual.getOsVersion(), is(expected.getOsVersion()));
+        assertThat(actual.getVmmName(), is(expected.getVmmName()));
+        assertThat(actual.getVmmVersion(), is(expected.getVmmVersion()));
+        assertThat(actual.getProcessorFlags(), is(expected.getProcessorFlags()));
+        assertThat(actual.getProcessorInfo(), is(expected.getProcessorInfo()));
+        assertThat(actual.getHardwareUuid(), is(expected.getHardwareUuid()));
+        assertThat(actual.getTpmVersion(), is(expected.getTpmVersion()));
+        assertThat(actual.getTxtEnabled(), is(expected.getTxtEnabled()));
+        assertThat(actual.getTpmEnabled(), is(expected.getTpmEnabled()));
+        assertThat(actual.getIsDockerEnv(), is(expected.getIsDockerEnv()));
+        assertThat(actual.getTbootInstalled(), is(expected.getTbootInstalled()));
+        assertThat(actual.getNoOfSockets(), is(expected.getNoOfSockets()));
+        assertThat(actual.getHostName(), is(expected.getHostName()));
+        assertThat(actual.getInstalledComponents(), is(expected.getInstalledComponents()));
+        Map<HardwareFeature, HardwareFeatureDetails> features = expected.getHardwareFeatures();
+        if (features == null) {
+            assertThat(actual.getHardwareFeatures(), is(nullValue()));
+            return;
+        }
+        assertThat(actual.getHardwareFeatures().keySet(), is(features.keySet()));
+        for (Map.Entry<HardwareFeature, HardwareFeatureDetails> feature : features.entrySet()) {
+            HardwareFeatureDetails details = actual.getHardwareFeatures().get(feature.getKey());
+            assertThat(details.getEnabled(), is(feature.getValue().getEnabled()));
+            assertThat(details.getMeta(), is(feature.getValue().getMeta()));
+        }
+    }
+
+    private static HostInfo collect() throws IOException, PlatformInfoException {
+        return new PlatformInfo(new HostInfoCommandMockLinux()).getHostInfo();
+    }
+
+    @Test
+    public void roundTrip() throws IOException, PlatformInfoException {
+        HostInfo hostInfo = collect();
+        byte[] encoded = HostInfoCodec.encode(hostInfo);
+        assertSameHostInfo(HostInfoCodec.decode(encoded), hostInfo);
+        assertThat(encoded.length < hostInfo.getProcessorFlags().length(), is(true));
+    }
+
+    @Test
+    public void roundTripEmpty() {
+        HostInfo empty = new HostInfo();
+        assertSameHostInfo(HostInfoCodec.decode(HostInfoCodec.encode(empty)), empty);
+    }
+
+    @Test
+    public void roundTripUnorderedFlags() throws IOException, PlatformInfoException {
+        HostInfo hostInfo = collect();
+        hostInfo.setProcessorFlags("vmx fpu some_future_flag");
+        assertSameHostInfo(HostInfoCodec.decode(HostInfoCodec.encode(hostInfo)), hostInfo);
+    }
+
+    @Test
+    public void roundTripCanonicalFlags() throws IOException, PlatformInfoException {
+        HostInfo hostInfo = collect();
+        hostInfo.setProcessorFlags(CpuFeatureSet.parse(hostInfo.getProcessorFlags()).toString());
+        byte[] encoded = HostInfoCodec.encode(hostInfo);
+        assertSameHostInfo(HostInfoCodec.decode(encoded), hostInfo);
+        hostInfo.setProcessorFlags("");
+        assertSameHostInfo(HostInfoCodec.decode(HostInfoCodec.encode(hostInfo)), hostInfo);
+    }
+
+    @Test
+    public void roundTripCanonicalFlagsWithOtherFlags() throws IOException, PlatformInfoException {
+        HostInfo hostInfo = collect();
+        hostInfo.setProcessorFlags("fpu vmx a_future_flag b_future_flag");
+        byte[] encoded = HostInfoCodec.encode(hostInfo);
+        assertSameHostInfo(HostInfoCodec.decode(encoded), hostInfo);
+        hostInfo.setProcessorFlags("fpu vmx b_future_flag a_future_flag");
+        assertSameHostInfo(HostInfoCodec.decode(HostInfoCodec.encode(hostInfo)), hostInfo);
+        hostInfo.setProcessorFlags("fpu  vmx ");
+        assertSameHostInfo(HostInfoCodec.decode(HostInfoCodec.encode(hostInfo)), hostInfo);
+    }
+
+    @Test
+    public void decodeInvalidHardwareFeature() {
+        Map<HardwareFeature, HardwareFeatureDetails> features = new HashMap<>();
+        features.put(HardwareFeature.TPM, null);
+        HostInfo hostInfo = new HostInfo();
+        hostInfo.setHardwareFeatures(features);
+        byte[] encoded = HostInfoCodec.encode(hostInfo);
+        // version, empty string table, 15 null values, null flags, one feature: TPM, no details, null components
+        assertThat(encoded, is(new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 8, 0, 0}));
+        encoded[19] = 0;
+        assertInvalid(encoded);
+        // a string table holding "NOPE", referenced as the feature
+        assertInvalid(new byte[]{1, 1, 4, 'N', 'O', 'P', 'E', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 12, 0, 0});
+    }
+
+    private static void assertInvalid(byte[] encoded) {
+        try {
+            HostInfoCodec.decode(encoded);
+            Assert.fail("decoded an invalid hardware feature");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage().endsWith("in host information encoding"), is(true));
+        }
+    }
+
+    @Test
+    public void decodeConsecutive() throws IOException, PlatformInfoException {
+        HostInfo first = collect();
+        HostInfo second = collect();
+        second.setHostName("second-host");
+        byte[] a = HostInfoCodec.encode(first);
+        byte[] b = HostInfoCodec.encode(second);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(a.length + b.length);
+        buffer.put(a).put(b).flip();
+        assertSameHostInfo(HostInfoCodec.decode(buffer), first);
+        assertSameHostInfo(HostInfoCodec.decode(buffer), second);
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void decodeTruncated() throws IOException, PlatformInfoException {
+        byte[] encoded = HostInfoCodec.encode(collect());
+        for (int length = 0; length < encoded.length; length++) {
+            try {
+                HostInfoCodec.decode(Arrays.copyOf(encoded, length));
+                Assert.fail("decoded " + length + " of " + encoded.length + " bytes");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
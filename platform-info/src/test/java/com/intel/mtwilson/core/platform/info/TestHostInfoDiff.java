@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.PlatformInfoException;
+import com.intel.mtwilson.core.common.model.HardwareFeature;
+import com.intel.mtwilson.core.common.model.HardwareFeatureDetails;
+import com.intel.mtwilson.core.common.model.HostInfo;
+import com.intel.mtwilson.core.platform.info.mock.HostInfoCommandMockLinux;
+import org.junit.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+public class TestHostInfoDiff {
+
+    private HostInfo base;
+    private HostInfo target;
+
+    @Before
+    public void setUp() throws IOException, PlatformInfoException {
+        base = new PlatformInfo(new HostInfoCommandMockLinux()).getHostInfo();
+        target = HostInfoCodec.decode(HostInfoCodec.encode(base));
+    }
+
+    @Test
+    public void unchanged() {
+        assertThat(HostInfoDiff.between(base, target).isEmpty(), is(true));
+    }
+
+    @Test
+    public void changes() {
+        target.setHostName("renamed-host");
+        target.setVmmVersion(null);
+        target.getHardwareFeatures().get(HardwareFeature.TPM).getMeta().put("tpm_version", "1.2");
+        target.getHardwareFeatures().get(HardwareFeature.TXT).setEnabled(!base.getHardwareFeatures().get(HardwareFeature.TXT).getEnabled());
+        target.getHardwareFeatures().remove(HardwareFeature.CBNT);
+        target.getInstalledComponents().add("wlagent");
+
+        HostInfoDiff diff = HostInfoDiff.between(base, target);
+        assertThat(diff.getChanges(), is(Arrays.asList(
+                new HostInfoDiff.Change("vmmVersion", null),
+                new HostInfoDiff.Change("hostName", "renamed-host"),
+                new HostInfoDiff.Change("hardwareFeatures/CBNT", null),
+                new HostInfoDiff.Change("hardwareFeatures/TPM/meta/tpm_version", "1.2"),
+                new HostInfoDiff.Change("hardwareFeatures/TXT/enabled", String.valueOf(target.getHardwareFeatures().get(HardwareFeature.TXT).getEnabled())),
+                new HostInfoDiff.Change("installedComponents/wlagent", "true"))));
+
+        HostInfo applied = diff.applyTo(base);
+        assertThat(HostInfoDiff.between(applied, target).isEmpty(), is(true));
+        assertThat(applied.getHostName(), is("renamed-host"));
+        assertThat(base.getHostName().equals("renamed-host"), is(false));
+        assertThat(base.getHardwareFeatures().containsKey(HardwareFeature.CBNT), is(true));
+    }
+
+    @Test
+    public void collectionsCreatedAndCleared() {
+        HostInfo empty = new HostInfo();
+        HostInfo applied = HostInfoDiff.between(empty, target).applyTo(empty);
+        assertThat(HostInfoDiff.between(applied, target).isEmpty(), is(true));
+        assertThat(applied.getHardwareFeatures().get(HardwareFeature.TPM).getMeta(),
+                is(target.getHardwareFeatures().get(HardwareFeature.TPM).getMeta()));
+
+        HostInfo cleared = HostInfoDiff.between(target, empty).applyTo(target);
+        assertThat(HostInfoDiff.between(cleared, empty).isEmpty(), is(true));
+        assertThat(cleared.getHardwareFeatures(), is(nullValue()));
+        assertThat(cleared.getInstalledComponents(), is(nullValue()));
+
+        HostInfo emptyCollections = new HostInfo();
+        emptyCollections.setHardwareFeatures(new HashMap<>());
+        emptyCollections.setInstalledComponents(new HashSet<>());
+        HostInfo created = HostInfoDiff.between(empty, emptyCollections).applyTo(empty);
+        assertThat(created.getHardwareFeatures().isEmpty(), is(true));
+        assertThat(created.getInstalledComponents().isEmpty(), is(true));
+    }
+
+    @Test
+    public void featureMetaCreated() {
+        HardwareFeatureDetails suefi = new HardwareFeatureDetails();
+        suefi.setEnabled(true);
+        suefi.setMeta(new HashMap<>());
+        suefi.getMeta().put("mode", "user/deployed");
+        target.getHardwareFeatures().put(HardwareFeature.SUEFI, suefi);
+        HostInfo applied = HostInfoDiff.of(HostInfoDiff.between(base, target).getChanges()).applyTo(base);
+        assertThat(applied.getHardwareFeatures().get(HardwareFeature.SUEFI).getEnabled(), is(true));
+        assertThat(applied.getHardwareFeatures().get(HardwareFeature.SUEFI).getMeta().get("mode"), is("user/deployed"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPath() {
+        HostInfoDiff.of(Arrays.asList(new HostInfoDiff.Change("noSuchProperty", "x"))).applyTo(base);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestHostInfoSnapshotStore {
+
+    private static final String BOOT_ID = "3f1c2d7e-5a4b-4c8e-9f10-2b6d8e7a9c01";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        HostInfoSnapshotStore store = new HostInfoSnapshotStore(folder.getRoot().toPath().resolve("host-info"));
+        Map<HostInfoField, String> fields = new EnumMap<>(HostInfoField.class);
+        fields.put(HostInfoField.BIOS_NAME, "Intel Corp.");
+        fields.put(HostInfoField.PROCESSOR_FLAGS, "fpu vme de pse");
+        fields.put(HostInfoField.HOST_NAME, "not boot invariant");
+        store.save(BOOT_ID, fields);
+        fields.remove(HostInfoField.HOST_NAME);
+        assertThat(store.load(BOOT_ID), is(fields));
+        fields.put(HostInfoField.BIOS_NAME, "American Megatrends Inc.");
+        store.save(BOOT_ID, fields);
+        assertThat(store.load(BOOT_ID), is(fields));
+        String[] files = folder.getRoot().list();
+        Arrays.sort(files);
+        assertThat(files, is(new String[] { "host-info", "host-info.lock" }));
+    }
+
+    @Test
+    public void loadOtherBoot() throws IOException {
+        HostInfoSnapshotStore store = new HostInfoSnapshotStore(folder.getRoot().toPath().resolve("host-info"));
+        assertThat(store.load(BOOT_ID).isEmpty(), is(true));
+        Map<HostInfoField, String> fields = new EnumMap<>(HostInfoField.class);
+        fields.put(HostInfoField.BIOS_NAME, "Intel Corp.");
+        store.save(BOOT_ID, fields);
+        assertThat(store.load("a7d1e9b2-0c3f-4e5d-8a6b-1f2e3d4c5b6a").isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestHostInfoWatcher {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final BlockingQueue<Set<HostInfoField>> changes = new LinkedBlockingQueue<>();
+
+    private HostInfoWatcher watch(Map<Path, Set<HostInfoField>> paths) throws IOException {
+        return new HostInfoWatcher(paths, 100, changes::add);
+    }
+
+    @Test
+    public void fileChangeReportsItsFields() throws IOException, InterruptedException {
+        Path etc = folder.newFolder("etc").toPath();
+        Path hostname = Files.write(etc.resolve("hostname"), "old\n".getBytes(StandardCharsets.US_ASCII));
+        Map<Path, Set<HostInfoField>> paths = new HashMap<>();
+        paths.put(hostname, EnumSet.of(HostInfoField.HOST_NAME));
+        paths.put(etc.resolve("os-release"), EnumSet.of(HostInfoField.OS_NAME, HostInfoField.OS_VERSION));
+        HostInfoWatcher watcher = watch(paths);
+        try {
+            Files.write(etc.resolve("unrelated"), "x".getBytes(StandardCharsets.US_ASCII));
+            Files.write(hostname, "new\n".getBytes(StandardCharsets.US_ASCII));
+            Files.write(hostname, "newer\n".getBytes(StandardCharsets.US_ASCII));
+            Set<HostInfoField> changed = changes.poll(30, TimeUnit.SECONDS);
+            assertThat(changed, is((Set<HostInfoField>) EnumSet.of(HostInfoField.HOST_NAME)));
+            assertThat(changes.poll(500, TimeUnit.MILLISECONDS) == null, is(true));
+        } finally {
+            watcher.close();
+        }
+    }
+
+    @Test
+    public void directoryChangeReportsItsFields() throws IOException, InterruptedException {
+        Path tpm = folder.newFolder("sys", "class", "tpm").toPath();
+        Map<Path, Set<HostInfoField>> paths = new HashMap<>();
+        paths.put(tpm, EnumSet.of(HostInfoField.TPM_VERSION, HostInfoField.TPM_ENABLED));
+        paths.put(folder.getRoot().toPath().resolve("missing/file"), EnumSet.of(HostInfoField.DOCKER_ENV));
+        HostInfoWatcher watcher = watch(paths);
+        try {
+            Files.createDirectory(tpm.resolve("tpm0"));
+            Set<HostInfoField> changed = changes.poll(30, TimeUnit.SECONDS);
+            assertThat(changed, is((Set<HostInfoField>) EnumSet.of(HostInfoField.TPM_VERSION, HostInfoField.TPM_ENABLED)));
+        } finally {
+            watcher.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.junit.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestOsRelease {
+
+    private static OsRelease parse(String content) throws IOException {
+        return OsRelease.parse(new BufferedReader(new StringReader(content)));
+    }
+
+    @Test
+    public void rhel() throws IOException {
+        OsRelease osRelease = parse("NAME=\"Red Hat Enterprise Linux Server\"\n"
+                + "VERSION=\"7.6 (Maipo)\"\n"
+                + "ID=\"rhel\"\n"
+                + "ID_LIKE=\"fedora\"\n"
+                + "VERSION_ID=\"7.6\"\n");
+        assertThat(osRelease.getDistributorId(), is("RedHatEnterpriseServer"));
+        assertThat(osRelease.getId(), is("rhel"));
+        assertThat(osRelease.getVersionId(), is("7.6"));
+    }
+
+    @Test
+    public void debian() throws IOException {
+        OsRelease osRelease = parse("PRETTY_NAME=\"Debian GNU/Linux 9 (stretch)\"\nNAME=\"Debian GNU/Linux\"\nVERSION_ID=\"9\"\nID=debian\n");
+        assertThat(osRelease.getDistributorId(), is("Debian"));
+        assertThat(osRelease.getVersionId(), is("9"));
+    }
+
+    @Test
+    public void quotingAndComments() throws IOException {
+        OsRelease osRelease = parse("# comment\n\nID=clear-linux-os\nVERSION_ID='29820'\nPRETTY_NAME=\"Say \\\"hi\\\"\"\n");
+        assertThat(osRelease.getDistributorId(), is("clear-linux-os"));
+        assertThat(osRelease.getVersionId(), is("29820"));
+        assertThat(osRelease.get("PRETTY_NAME"), is("Say \"hi\""));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+public class TestOutputScanner {
+
+    @Test
+    public void colonDelimited() {
+        OutputScanner output = new OutputScanner("No LSB modules are available.\nDistributor ID:\tUbuntu\nRelease:        18.04 \n");
+        assertThat(output.find(':', "release"), is("18.04"));
+        assertThat(output.nextLine(), is(false));
+        output.moveTo(1);
+        assertThat(output.keyEquals(':', "Distributor ID"), is(true));
+        assertThat(output.keyEquals(':', "Distributor"), is(false));
+        assertThat(output.value(':').toString(), is("Ubuntu"));
+        assertThat(output.value(':').subSequence(1, 3).toString(), is("bu"));
+        output.moveTo(0);
+        assertThat(output.value(':'), is(nullValue()));
+    }
+
+    @Test
+    public void equalsDelimited() {
+        OutputScanner output = new OutputScanner("\r\r\nIsEnabled_InitialValue=TRUE\r\r\nSpecVersion=2.0, 0, 1.16\r\r\n\r\r\n");
+        assertThat(output.find('=', "SpecVersion"), is("2.0, 0, 1.16"));
+        output.moveTo(0);
+        assertThat(output.find('=', "IsEnabled_InitialValue"), is("TRUE"));
+        assertThat(output.find('=', "IsOwned_InitialValue"), is(nullValue()));
+    }
+
+    @Test
+    public void linesAndTokens() {
+        OutputScanner output = new OutputScanner("# dmidecode 3.1\n  Intel Corp.  \r\nRunning hypervisor: QEMU 2.11.1\n");
+        assertThat(output.firstLine(true), is("Intel Corp."));
+        assertThat(output.nextLine(), is(true));
+        assertThat(output.valueToken(':', 0), is("QEMU"));
+        assertThat(output.valueToken(':', 1), is("2.11.1"));
+        assertThat(output.valueToken(':', 2), is(nullValue()));
+        assertThat(output.token(1), is("hypervisor:"));
+        output.moveTo(1);
+        assertThat(output.lineWithoutWhitespace(), is("IntelCorp."));
+        assertThat(output.moveTo(3), is(false));
+        assertThat(new OutputScanner(" 3\n").contentEquals("3"), is(true));
+        assertThat(new OutputScanner("").firstLine(false), is(""));
+        assertThat(new OutputScanner(null).hasOutput(), is(false));
+    }
+
+    @Test
+    public void controlCharactersInLine() {
+        OutputScanner output = new OutputScanner("S\0o\0c\0k\0e\0t\0D\0e\0s\0i\0g\0n\0a\0t\0i\0o\0n\0\r\0\n\0");
+        assertThat(output.nextLine(), is(true));
+        assertThat(output.lineContains("SocketDesignation"), is(true));
+        assertThat(output.lineContains("Designations"), is(false));
+        assertThat(output.nextLine(), is(true));
+        assertThat(output.isBlank(), is(true));
+    }
+}
@@ -4,16 +4,34 @@
  */
 package com.intel.mtwilson.core.platform.info;
 
+import com.intel.mtwilson.core.common.ErrorCode;
 import com.intel.mtwilson.core.common.PlatformInfoException;
+import com.intel.mtwilson.core.common.model.BootGuardProfile;
 import com.intel.mtwilson.core.common.model.ComponentStatus;
 import com.intel.mtwilson.core.common.model.FeatureStatus;
+import com.intel.mtwilson.core.common.model.HardwareFeature;
 import com.intel.mtwilson.core.common.model.HostInfo;
 import com.intel.mtwilson.core.platform.info.mock.HostInfoCommandMockLinux;
 import com.intel.mtwilson.core.common.model.HostComponents;
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.Set;
@@ -27,6 +45,9 @@ public class TestPlatformInfoLinux {
     private HostInfo expectedHostInfoLinux;
     private HostInfoCommandMockLinux mockCmd = new HostInfoCommandMockLinux();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @BeforeClass
     public static void setUpClass() throws Exception {
     }
@@ -145,4 +166,400 @@ public class TestPlatformInfoLinux {
     public void getInstalledComponents() throws IOException, PlatformInfoException {
         assertThat(platformInfo.getInstalledComponents(), is(expectedHostInfoLinux.getInstalledComponents()));
     }
+
+    @Test
+    public void getHostInfoConcurrently() throws IOException, PlatformInfoException {
+        HostInfo sequential = new PlatformInfo(new HostInfoCommandMockLinux()).getHostInfo();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger submitted = new AtomicInteger();
+            platformInfo.setExecutor(task -> {
+                submitted.incrementAndGet();
+                pool.execute(task);
+            });
+            HostInfo concurrent = platformInfo.getHostInfo();
+            assertThat(submitted.get() > 1, is(true));
+            assertThat(concurrent.getBiosName(), is(sequential.getBiosName()));
+            assertThat(concurrent.getHardwareUuid(), is(sequential.getHardwareUuid()));
+            assertThat(concurrent.getProcessorFlags(), is(sequential.getProcessorFlags()));
+            assertThat(concurrent.getVmmName(), is(sequential.getVmmName()));
+            assertThat(concurrent.getTxtEnabled(), is(sequential.getTxtEnabled()));
+            assertThat(concurrent.getNoOfSockets(), is(sequential.getNoOfSockets()));
+            assertThat(concurrent.getHardwareFeatures().keySet(), is(sequential.getHardwareFeatures().keySet()));
+            assertThat(concurrent.getInstalledComponents(), is(sequential.getInstalledComponents()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void setParallelismLeavesTheCallersExecutor() throws IOException, PlatformInfoException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            platformInfo.setExecutor(pool);
+            platformInfo.setParallelism(2);
+            assertThat(pool.isShutdown(), is(false));
+            platformInfo.setExecutor(pool);
+            assertThat(platformInfo.getHostInfo().getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+            platformInfo.setParallelism(1);
+            assertThat(pool.isShutdown(), is(false));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void getHostInfoAsync() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            HostInfo hostInfo = platformInfo.getHostInfoAsync(pool).get();
+            assertThat(hostInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+            assertThat(hostInfo.getOsVersion(), is(expectedHostInfoLinux.getOsVersion()));
+            assertThat(hostInfo.getProcessorInfo(), is(expectedHostInfoLinux.getProcessorInfo()));
+            assertThat(hostInfo.getTxtEnabled(), is(expectedHostInfoLinux.getTxtEnabled()));
+            assertThat(platformInfo.getHostNameAsync(pool).get(), is(expectedHostInfoLinux.getHostName()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void getBiosNameAsyncFailure() throws Exception {
+        PlatformInfo failing = new PlatformInfo(new HostInfoCommandMockLinux() {
+            @Override
+            public String getBiosName() throws IOException {
+                throw new IOException("dmidecode: permission denied");
+            }
+        });
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            failing.getBiosNameAsync(pool).get();
+            Assert.fail("expected the future to complete exceptionally");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof PlatformInfoException, is(true));
+            assertThat(((PlatformInfoException) e.getCause()).getErrorCode(), is(ErrorCode.COMMAND_ERROR));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void getHostInfoRunsEachCommandOnce() throws IOException, PlatformInfoException {
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        platformInfo.getHostInfo();
+        assertThat(mockCmd.getRunner().getExecutionCount("lsb_release -a"), is(1));
+        assertThat(mockCmd.getRunner().getExecutionCount("docker -v"), is(1));
+        assertThat(mockCmd.getRunner().getExecutionCount("rdmsr -f 32:32 0x13A"), is(1));
+    }
+
+    @Test
+    public void getHostInfoOfSelectedFields() throws IOException, PlatformInfoException {
+        ProbeMetricsRecorder metrics = new ProbeMetricsRecorder();
+        platformInfo.setProbeListener(metrics);
+        HostInfo hostInfo = platformInfo.getHostInfo(EnumSet.of(HostInfoField.HARDWARE_UUID, HostInfoField.TPM_ENABLED));
+        assertThat(metrics.getFieldDurations().keySet(),
+                is(EnumSet.of(HostInfoField.HARDWARE_UUID, HostInfoField.TPM_VERSION, HostInfoField.TPM_ENABLED)));
+        assertThat(hostInfo.getHardwareUuid(), is(platformInfo.getHardwareUuid()));
+        assertThat(hostInfo.getTpmVersion(), is(platformInfo.getTpmVersion()));
+        assertThat(hostInfo.getHardwareFeatures().keySet(), is(EnumSet.of(HardwareFeature.TPM)));
+        assertThat(hostInfo.getOsName() == null, is(true));
+        assertThat(hostInfo.getInstalledComponents() == null, is(true));
+        assertThat(mockCmd.getRunner().getExecutionCount("lsb_release -a"), is(0));
+        assertThat(mockCmd.getRunner().getExecutionCount("docker -v"), is(0));
+    }
+
+    @Test
+    public void commandsOutsideScopeAreNotCached() throws IOException, PlatformInfoException {
+        mockCmd.getVmmName();
+        mockCmd.getVmmVersion();
+        assertThat(mockCmd.getRunner().getExecutionCount("docker -v"), is(2));
+    }
+
+    @Test
+    public void getDmiFromSysfs() throws IOException, PlatformInfoException {
+        assertThat(platformInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+        assertThat(platformInfo.getBiosVersion(), is(expectedHostInfoLinux.getBiosVersion()));
+        assertThat(platformInfo.getHardwareUuid(), is(expectedHostInfoLinux.getHardwareUuid()));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode -s bios-vendor"), is(0));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode -s system-uuid"), is(0));
+        assertThat(platformInfo.getProcessorInfo(), is(expectedHostInfoLinux.getProcessorInfo()));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode --type processor"), is(0));
+    }
+
+    @Test
+    public void smbiosTableIsParsedOncePerScope() {
+        HostInfoCommandLinux linux = mockCmd;
+        assertThat(linux.smbiosTable() == linux.smbiosTable(), is(false));
+        CommandLineRunner.Scope scope = mockCmd.getRunner().openScope();
+        try {
+            SmbiosTable smbios = linux.smbiosTable();
+            assertThat(smbios.getBiosVendor(), is(expectedHostInfoLinux.getBiosName()));
+            assertThat(linux.smbiosTable() == smbios, is(true));
+        } finally {
+            scope.close();
+        }
+    }
+
+    @Test
+    public void getDmiFallsBackToDmidecode() throws IOException, PlatformInfoException {
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+        assertThat(platformInfo.getBiosVersion(), is(expectedHostInfoLinux.getBiosVersion()));
+        assertThat(platformInfo.getHardwareUuid(), is(expectedHostInfoLinux.getHardwareUuid()));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode -s bios-vendor"), is(1));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode -s system-uuid"), is(1));
+        assertThat(platformInfo.getProcessorInfo(), is(expectedHostInfoLinux.getProcessorInfo()));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode --type processor"), is(1));
+    }
+
+    @Test
+    public void getOsFromOsRelease() throws IOException, PlatformInfoException {
+        assertThat(platformInfo.getOsName(), is(expectedHostInfoLinux.getOsName()));
+        assertThat(platformInfo.getOsVersion(), is(expectedHostInfoLinux.getOsVersion()));
+        assertThat(mockCmd.getRunner().getExecutionCount("lsb_release -a"), is(0));
+    }
+
+    @Test
+    public void getOsFallsBackToLsbRelease() throws IOException, PlatformInfoException {
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getOsName(), is(expectedHostInfoLinux.getOsName()));
+        assertThat(platformInfo.getOsVersion(), is(expectedHostInfoLinux.getOsVersion()));
+        assertThat(mockCmd.getRunner().getExecutionCount("lsb_release -a"), is(2));
+    }
+
+    @Test
+    public void getNoOfSocketsFromSysfs() throws IOException, PlatformInfoException {
+        assertThat(platformInfo.getNoOfSockets(), is(expectedHostInfoLinux.getNoOfSockets()));
+        assertThat(mockCmd.getRunner().getExecutionCount("lscpu"), is(0));
+    }
+
+    @Test
+    public void getNoOfSocketsFallsBackToLscpu() throws IOException, PlatformInfoException {
+        Path topology = folder.newFolder("sys", "devices", "system", "cpu", "cpu0", "topology").toPath();
+        Files.write(topology.resolve("physical_package_id"), "-1\n".getBytes(StandardCharsets.US_ASCII));
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getNoOfSockets(), is(expectedHostInfoLinux.getNoOfSockets()));
+        assertThat(mockCmd.getRunner().getExecutionCount("lscpu"), is(1));
+    }
+
+    @Test
+    public void getNoOfSocketsWithSparsePackageIds() throws IOException, PlatformInfoException {
+        Path cpus = folder.newFolder("sys", "devices", "system", "cpu").toPath();
+        String[] ids = {"0", "999999999", "0"};
+        for (int i = 0; i < ids.length; i++) {
+            Path topology = Files.createDirectories(cpus.resolve("cpu" + i).resolve("topology"));
+            Files.write(topology.resolve("physical_package_id"), (ids[i] + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getNoOfSockets(), is("2"));
+        assertThat(mockCmd.getRunner().getExecutionCount("lscpu"), is(0));
+    }
+
+    @Test
+    public void getNoOfSocketsFromUnreadableTopologyFallsBackToLscpu() throws IOException, PlatformInfoException {
+        folder.newFolder("sys", "devices", "system", "cpu", "cpu0", "topology", "physical_package_id");
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getNoOfSockets(), is(expectedHostInfoLinux.getNoOfSockets()));
+        assertThat(mockCmd.getRunner().getExecutionCount("lscpu"), is(1));
+    }
+
+    @Test
+    public void getMsrFromDevice() throws IOException, PlatformInfoException {
+        assertThat(platformInfo.getTxtStatus(), is(FeatureStatus.ENABLED.getValue()));
+        assertThat(platformInfo.getCbntStatus(), is(FeatureStatus.ENABLED.getValue()));
+        assertThat(platformInfo.getCbntProfile(), is(BootGuardProfile.BTGP5.getName()));
+        assertThat(mockCmd.getRunner().getExecutionCount("rdmsr 0x3a -f 1:0"), is(0));
+        assertThat(mockCmd.getRunner().getExecutionCount("rdmsr -f 32:32 0x13A"), is(0));
+    }
+
+    @Test
+    public void getMsrFallsBackToRdmsr() throws IOException, PlatformInfoException {
+        mockCmd.setMsrDevice(folder.getRoot().toPath().resolve("msr"));
+        assertThat(String.valueOf(platformInfo.getTxtStatus().equals(FeatureStatus.ENABLED.getValue())), is(expectedHostInfoLinux.getTxtEnabled()));
+        assertThat(platformInfo.getCbntStatus(), is(FeatureStatus.UNSUPPORTED.getValue()));
+        assertThat(mockCmd.getRunner().getExecutionCount("rdmsr 0x3a -f 1:0"), is(1));
+        assertThat(mockCmd.getRunner().getExecutionCount("rdmsr -f 32:32 0x13A"), is(1));
+    }
+
+    @Test
+    public void getCbntFromRdmsr() throws IOException, PlatformInfoException {
+        mockCmd.setMsrDevice(folder.getRoot().toPath().resolve("msr"));
+        mockCmd.getRunner().setOutput("rdmsr -f 32:32 0x13A", "1\n");
+        mockCmd.getRunner().setOutput("rdmsr -f 7:4 0x13A", "f\n");
+        mockCmd.getRunner().setOutput("rdmsr -f 0:0 0x13A", "0\n");
+        mockCmd.getRunner().setOutput("rdmsr -f 7:0 0x13A", "7d\n");
+        assertThat(platformInfo.getCbntStatus(), is(FeatureStatus.ENABLED.getValue()));
+        assertThat(platformInfo.getCbntProfile(), is(BootGuardProfile.BTGP5.getName()));
+    }
+
+    @Test
+    public void getTxtStatusFromProcessorFlags() throws IOException, PlatformInfoException {
+        Path proc = folder.newFolder("proc").toPath();
+        Files.write(proc.resolve("cpuinfo"), "processor\t: 0\nflags\t\t: fpu vme vmx smx\n".getBytes(StandardCharsets.US_ASCII));
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getTxtStatus(), is(FeatureStatus.ENABLED.getValue()));
+        assertThat(mockCmd.getRunner().getExecutionCount("rdmsr 0x3a -f 1:0"), is(1));
+    }
+
+    @Test
+    public void getTxtStatusUnsupported() throws IOException, PlatformInfoException {
+        Path proc = folder.newFolder("proc").toPath();
+        Files.write(proc.resolve("cpuinfo"), "processor\t: 0\nflags\t\t: fpu vme\n".getBytes(StandardCharsets.US_ASCII));
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getTxtStatus(), is(FeatureStatus.UNSUPPORTED.getValue()));
+        assertThat(mockCmd.getRunner().getExecutionCount("rdmsr 0x3a -f 1:0"), is(0));
+    }
+
+    @Test
+    public void getProcessorFlagsFromUnreadableCpuInfo() throws IOException, PlatformInfoException {
+        // a directory stands in for a /proc that cannot be read, which fails with an IOException other than NoSuchFileException
+        folder.newFolder("proc", "cpuinfo");
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getProcessorFlags(), is(""));
+    }
+
+    @Test
+    public void getTpmFromHostRoot() throws IOException, PlatformInfoException {
+        assertThat(platformInfo.getTpmVersion(), is("2.0"));
+        assertThat(platformInfo.getTpmEnabled(), is("true"));
+    }
+
+    @Test
+    public void getTpm12FromHostRoot() throws IOException, PlatformInfoException {
+        Path root = folder.getRoot().toPath();
+        Path device = folder.newFolder("sys", "class", "tpm", "tpm0", "device").toPath();
+        Files.write(device.resolve("caps"), new byte[0]);
+        Files.write(device.resolve("enabled"), "1\n".getBytes(StandardCharsets.US_ASCII));
+        folder.newFolder("dev");
+        Files.write(root.resolve("dev/tpm0"), new byte[0]);
+        mockCmd.setHostRoot(root);
+        assertThat(platformInfo.getTpmVersion(), is("1.2"));
+        assertThat(platformInfo.getTpmEnabled(), is("true"));
+        assertThat(mockCmd.getRunner().getExecutionCount("cat /sys/class/tpm/tpm0/device/enabled"), is(0));
+    }
+
+    @Test
+    public void getHostInfoDeadline() throws IOException, PlatformInfoException {
+        mockCmd.getRunner().setDelay("docker -v", 10000);
+        platformInfo.setTimeout(200, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        try {
+            platformInfo.getHostInfo();
+            Assert.fail("the deadline was not enforced");
+        } catch (PlatformInfoException e) {
+            assertThat(e.getErrorCode(), is(ErrorCode.COMMAND_TIMEOUT));
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000, is(true));
+
+        mockCmd.getRunner().setDelay("docker -v", 0);
+        assertThat(platformInfo.getHostInfo().getVmmName(), is("Docker"));
+    }
+
+    @Test
+    public void cachedFieldExpires() throws IOException, PlatformInfoException {
+        AtomicLong now = new AtomicLong();
+        platformInfo.ticker = now::get;
+        platformInfo.setCachePolicy(CachePolicy.permanent().withTtl(HostInfoField.HOST_NAME, 1, TimeUnit.MINUTES));
+        assertThat(platformInfo.getHostName(), is(expectedHostInfoLinux.getHostName()));
+        assertThat(platformInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertThat(platformInfo.getHostName(), is(expectedHostInfoLinux.getHostName()));
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(platformInfo.getHostName(), is(expectedHostInfoLinux.getHostName()));
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(2));
+        now.addAndGet(TimeUnit.DAYS.toNanos(365));
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        assertThat(platformInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode -s bios-vendor"), is(0));
+    }
+
+    @Test
+    public void uncachedFieldProbedOncePerCollection() throws IOException, PlatformInfoException {
+        platformInfo.setCachePolicy(CachePolicy.defaults().withTtl(HostInfoField.HOST_NAME, 0, TimeUnit.SECONDS));
+        assertThat(platformInfo.getHostInfo().getHostName(), is(expectedHostInfoLinux.getHostName()));
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(1));
+        platformInfo.getHostName();
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(2));
+    }
+
+    @Test
+    public void invalidateField() throws IOException, PlatformInfoException {
+        platformInfo.setCachePolicy(CachePolicy.permanent());
+        platformInfo.getHostName();
+        platformInfo.getHostName();
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(1));
+        platformInfo.invalidate(HostInfoField.HOST_NAME);
+        assertThat(platformInfo.getHostName(), is(expectedHostInfoLinux.getHostName()));
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(2));
+    }
+
+    @Test
+    public void refreshReprobesOnlyExpiringFields() throws IOException, PlatformInfoException {
+        platformInfo.getHostInfo();
+        mockCmd.setHostRoot(folder.getRoot().toPath());
+        HostInfo hostInfo = platformInfo.refresh();
+        assertThat(hostInfo.getHostName(), is(expectedHostInfoLinux.getHostName()));
+        assertThat(hostInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(2));
+        assertThat(mockCmd.getRunner().getExecutionCount("dmidecode -s bios-vendor"), is(0));
+        assertThat(mockCmd.getRunner().getExecutionCount("lsb_release -a"), is(1));
+    }
+
+    @Test
+    public void changeListenerNotifiedOfChangedFields() throws IOException, PlatformInfoException {
+        List<Set<HostInfoField>> notifications = new ArrayList<>();
+        platformInfo.addHostInfoChangeListener((source, changed) -> notifications.add(changed));
+        platformInfo.getHostInfo();
+        platformInfo.fieldsChanged(EnumSet.of(HostInfoField.HOST_NAME, HostInfoField.OS_NAME));
+        assertThat(notifications.isEmpty(), is(true));
+        mockCmd.getRunner().setOutput("hostname", "renamed-host\n");
+        platformInfo.fieldsChanged(EnumSet.of(HostInfoField.HOST_NAME, HostInfoField.OS_NAME));
+        assertThat(notifications.size(), is(1));
+        assertThat(notifications.get(0), is((Set<HostInfoField>) EnumSet.of(HostInfoField.HOST_NAME)));
+        assertThat(platformInfo.getHostName(), is("renamed-host"));
+        assertThat(mockCmd.getRunner().getExecutionCount("hostname"), is(3));
+    }
+
+    @Test
+    public void bootInvariantFieldsFromSnapshot() throws IOException, PlatformInfoException {
+        HostInfoSnapshotStore store = new HostInfoSnapshotStore(folder.getRoot().toPath().resolve("host-info"));
+        platformInfo.setSnapshotStore(store);
+        platformInfo.getHostInfo();
+        assertThat(Files.exists(store.getFile()), is(true));
+
+        HostInfoCommandMockLinux restartedCmd = new HostInfoCommandMockLinux();
+        PlatformInfo restarted = new PlatformInfo(restartedCmd);
+        restarted.setSnapshotStore(store);
+        restartedCmd.setHostRoot(folder.newFolder("empty").toPath());
+        HostInfo hostInfo = restarted.getHostInfo();
+        assertThat(hostInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+        assertThat(hostInfo.getHardwareUuid(), is(expectedHostInfoLinux.getHardwareUuid()));
+        assertThat(hostInfo.getProcessorInfo(), is(expectedHostInfoLinux.getProcessorInfo()));
+        assertThat(hostInfo.getNoOfSockets(), is(expectedHostInfoLinux.getNoOfSockets()));
+        assertThat(hostInfo.getTpmVersion(), is("2.0"));
+        assertThat(restartedCmd.getRunner().getExecutionCount("dmidecode -s bios-vendor"), is(0));
+        assertThat(restartedCmd.getRunner().getExecutionCount("dmidecode --type processor"), is(0));
+        assertThat(restartedCmd.getRunner().getExecutionCount("lscpu"), is(0));
+        assertThat(restartedCmd.getRunner().getExecutionCount("hostname"), is(1));
+    }
+
+    @Test
+    public void snapshotOfOtherBootIgnored() throws IOException, PlatformInfoException {
+        HostInfoSnapshotStore store = new HostInfoSnapshotStore(folder.getRoot().toPath().resolve("host-info"));
+        Map<HostInfoField, String> fields = new EnumMap<>(HostInfoField.class);
+        fields.put(HostInfoField.BIOS_NAME, "Previous boot");
+        store.save("00000000-0000-0000-0000-000000000000", fields);
+        platformInfo.setSnapshotStore(store);
+        assertThat(platformInfo.getBiosName(), is(expectedHostInfoLinux.getBiosName()));
+    }
+
+    @Test
+    public void msrBits() {
+        long sacmInfo = 0x10000007dL;
+        assertThat(Msr.bits(sacmInfo, 32, 32), is(1L));
+        assertThat(Msr.bits(sacmInfo, 7, 4), is(7L));
+        assertThat(Msr.bits(sacmInfo, 7, 0), is(0x7dL));
+        assertThat(Msr.bits(-1L, 63, 0), is(-1L));
+    }
 }
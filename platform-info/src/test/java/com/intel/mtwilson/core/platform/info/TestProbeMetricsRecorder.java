@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.PlatformInfoException;
+import com.intel.mtwilson.core.platform.info.mock.HostInfoCommandMockLinux;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestProbeMetricsRecorder {
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        long p50 = TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtQuantile(0.50));
+        long p99 = TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtQuantile(0.99));
+        assertThat(p50 >= 500 && p50 <= 500 * 9 / 8, is(true));
+        assertThat(p99 >= 990 && p99 <= 1000, is(true));
+        assertThat(histogram.getMax(), is(TimeUnit.MICROSECONDS.toNanos(1000)));
+        assertThat(histogram.getCount(), is(1000L));
+    }
+
+    @Test
+    public void bucketBounds() {
+        for (long value : new long[] { 0, 7, 8, 15, 16, 1000, 123456789, Long.MAX_VALUE }) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertThat(LatencyHistogram.highestValue(bucket) >= value, is(true));
+            assertThat(bucket == 0 || LatencyHistogram.highestValue(bucket - 1) < value, is(true));
+        }
+    }
+
+    @Test
+    public void recordsCommandsAndProbedFields() throws IOException, PlatformInfoException {
+        ProbeMetricsRecorder metrics = new ProbeMetricsRecorder();
+        PlatformInfo platformInfo = new PlatformInfo(new HostInfoCommandMockLinux());
+        platformInfo.setProbeListener(metrics);
+        platformInfo.getHostInfo();
+        platformInfo.getHostInfo();
+
+        // the hardware UUID is cached forever, the host name for a minute
+        assertThat(metrics.getFieldDurations().get(HostInfoField.HARDWARE_UUID).getCount(), is(1L));
+        assertThat(metrics.getFieldDurations().get(HostInfoField.HOST_NAME).getCount(), is(1L));
+        // docker -v is shared by the VMM name and version probes of a collection
+        assertThat(metrics.getCommandRuntimes().get("docker -v").getCount(), is(1L));
+        assertThat(metrics.getCommandRuntimes().get("docker -v").getFailures(), is(0L));
+
+        metrics.reset();
+        assertThat(metrics.getFieldDurations().isEmpty(), is(true));
+        assertThat(metrics.getCommandRuntimes().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import com.intel.mtwilson.core.common.PlatformInfoException;
+import com.intel.mtwilson.util.exec.Result;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestShellSessionRunner {
+
+    private ShellSessionRunner runner;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+        runner = new ShellSessionRunner();
+    }
+
+    @After
+    public void tearDown() {
+        if (runner != null) {
+            runner.close();
+        }
+    }
+
+    @Test
+    public void framesOutputAndExitCode() throws IOException, PlatformInfoException {
+        Result result = runner.executeCommand("echo", "hello world");
+        assertThat(result.getExitCode(), is(0));
+        assertThat(result.getStdout(), is("hello world\n"));
+
+        result = runner.executeCommand("sh", "-c", "printf out; printf err >&2; exit 3");
+        assertThat(result.getExitCode(), is(3));
+        assertThat(result.getStdout(), is("out"));
+        assertThat(result.getStderr(), is("err"));
+
+        result = runner.executeCommand("printf", "%s", "it's");
+        assertThat(result.getStdout(), is("it's"));
+    }
+
+    @Test(expected = IOException.class)
+    public void commandNotFound() throws IOException, PlatformInfoException {
+        runner.executeCommand("platform-info-no-such-command");
+    }
+
+    @Test
+    public void restartsAfterExit() throws IOException, PlatformInfoException {
+        runner.executeCommand("echo", "one");
+        try {
+            runner.executeCommand("exec", "true");
+        } catch (IOException e) {
+            // the shell was replaced and ended
+        }
+        assertThat(runner.executeCommand("echo", "two").getStdout(), is("two\n"));
+    }
+
+    @Test
+    public void concurrentCommands() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Result>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String value = String.valueOf(i);
+                results.add(pool.submit(() -> runner.executeCommand("echo", value)));
+            }
+            for (int i = 0; i < 16; i++) {
+                assertThat(results.get(i).get().getStdout(), is(i + "\n"));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
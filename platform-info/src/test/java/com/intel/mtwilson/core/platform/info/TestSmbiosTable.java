@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2019 Intel Corporation
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package com.intel.mtwilson.core.platform.info;
+
+import org.junit.*;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestSmbiosTable {
+
+    private Path tables;
+
+    @Before
+    public void setUp() throws URISyntaxException {
+        tables = Paths.get(getClass().getResource("/linux/host/sys/firmware/dmi/tables").toURI());
+    }
+
+    @Test
+    public void readBiosAndSystem() throws IOException {
+        SmbiosTable smbios = SmbiosTable.read(tables);
+        assertThat(smbios.getVersion(), is("2.6"));
+        assertThat(smbios.getBiosVendor(), is("Intel Corp."));
+        assertThat(smbios.getBiosVersion(), is("SE5C600.86B.02.03.0003.041920141333"));
+        assertThat(smbios.getSystemManufacturer(), is("Intel Corporation"));
+        assertThat(smbios.getSystemProductName(), is("S2600CP"));
+        assertThat(smbios.getSystemUuid(), is("76262A9F-A72B-E411-BAB9-001E67C2ECAE"));
+    }
+
+    @Test
+    public void readEveryProcessor() throws IOException {
+        SmbiosTable smbios = SmbiosTable.read(tables);
+        assertThat(smbios.getProcessors().size(), is(2));
+        assertThat(smbios.getProcessors().get(0).getSocketDesignation(), is("CPU 1"));
+        assertThat(smbios.getProcessors().get(0).getId(), is("E4 06 03 00 FF FB EB BF"));
+        assertThat(smbios.getProcessors().get(0).isPopulated(), is(true));
+        assertThat(smbios.getProcessors().get(1).getSocketDesignation(), is("CPU 2"));
+    }
+
+    @Test
+    public void uuidBeforeSmbios26IsBigEndian() throws IOException {
+        byte[] entryPoint = Files.readAllBytes(tables.resolve("smbios_entry_point"));
+        entryPoint[0x07] = 4; // SMBIOS 2.4
+        SmbiosTable smbios = SmbiosTable.parse(ByteBuffer.wrap(entryPoint), ByteBuffer.wrap(Files.readAllBytes(tables.resolve("DMI"))));
+        assertThat(smbios.getSystemUuid(), is("9F2A2676-2BA7-11E4-BAB9-001E67C2ECAE"));
+    }
+
+    @Test
+    public void truncatedTable() throws IOException {
+        byte[] table = Files.readAllBytes(tables.resolve("DMI"));
+        SmbiosTable smbios = SmbiosTable.parse(ByteBuffer.wrap(Files.readAllBytes(tables.resolve("smbios_entry_point"))), ByteBuffer.wrap(table, 0, 100));
+        assertThat(smbios.getBiosVendor(), is("Intel Corp."));
+        assertThat(smbios.getProcessors().isEmpty(), is(true));
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownEntryPoint() throws IOException {
+        SmbiosTable.parse(ByteBuffer.wrap(new byte[32]), ByteBuffer.wrap(new byte[0]));
+    }
+}
@@ -11,9 +11,9 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CommandLineRunnerMock extends CommandLineRunner {
 
@@ -36,11 +36,52 @@ public class CommandLineRunnerMock extends CommandLineRunner {
         return new Result(0, stdout.getBytes(), new byte[0]);
     }
 
+    private final Map<String, AtomicInteger> executions = new ConcurrentHashMap<>();
+
+    public int getExecutionCount(String command) {
+        AtomicInteger count = executions.get(command);
+        return count == null ? 0 : count.get();
+    }
+
+    private final Map<String, Long> delays = new ConcurrentHashMap<>();
+
+    /*
+        simulates a command that takes the given time, or hangs until it is killed by the timeout
+     */
+    public void setDelay(String command, long millis) {
+        delays.put(command, millis);
+    }
+
+    private final Map<String, String> outputs = new ConcurrentHashMap<>();
+
+    /*
+        replaces the output of a command, for example to simulate a change on the host
+     */
+    public void setOutput(String command, String stdout) {
+        outputs.put(command, stdout);
+    }
+
     @Override
-    public Result executeCommand(String baseCmd, String... args) throws PlatformInfoException, IOException {
-        List<String> argsList = new ArrayList<String>(Arrays.asList(args));
-        argsList.add(0, baseCmd);
-        String flattened = String.join(" ", argsList);
+    protected Result execute(String[] commandArgs, boolean handleQuotes, long timeoutMillis) throws PlatformInfoException, IOException {
+        String flattened = String.join(" ", commandArgs);
+        executions.computeIfAbsent(flattened, command -> new AtomicInteger()).incrementAndGet();
+        Long delay = delays.get(flattened);
+        if (delay != null) {
+            boolean timedOut = timeoutMillis > NO_TIMEOUT && timeoutMillis < delay;
+            try {
+                Thread.sleep(timedOut ? timeoutMillis : delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (timedOut) {
+                throw timeout(commandArgs, timeoutMillis);
+            }
+        }
+        String output = outputs.get(flattened);
+        if (output != null) {
+            return createResult(output);
+        }
         switch (flattened) {
             case "lsb_release -a":
                 return createResult(readResourceFileAsString(LINUX,"lsb_release"));
@@ -59,16 +100,12 @@ public class CommandLineRunnerMock extends CommandLineRunner {
                 return createResult(readResourceFileAsString(LINUX,"dmidecode.processor"));
             case "dmidecode -s system-uuid":
                 return createResult(readResourceFileAsString(LINUX, "dmidecode.system-uuid"));
-            case "cpuid -1":
-                return createResult(readResourceFileAsString(LINUX, "cpuid"));
             case "rdmsr 0x3a -f 1:0":
                 return createResult(readResourceFileAsString(LINUX, "rdmsr"));
             case "lscpu":
                 return createResult(readResourceFileAsString(LINUX, "lscpu"));
             case "hostname":
                 return createResult(readResourceFileAsString(LINUX, "host-name"));
-            case "cat /proc/cpuinfo":
-                return createResult(readResourceFileAsString(LINUX, "proc-cpuinfo-rhel"));
             case "wmic os get caption":
                 return createResult(readResourceFileAsString(WINDOWS, "os-name"));
             case "wmic os get version":
@@ -95,9 +132,4 @@ public class CommandLineRunnerMock extends CommandLineRunner {
                 return new Result(1, new byte[0], "Unmockable command".getBytes());
         }
     }
-
-    @Override
-    public Result executeCommand(String baseCmd, boolean handleQuotes, String... args) throws PlatformInfoException, IOException {
-        return executeCommand(baseCmd, args);
-    }
 }
@@ -4,20 +4,38 @@
  */
 package com.intel.mtwilson.core.platform.info.mock;
 
-import com.intel.mtwilson.core.platform.info.CommandLineRunner;
 import com.intel.mtwilson.core.platform.info.HostInfoCommandLinux;
 
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class HostInfoCommandMockLinux extends HostInfoCommandLinux {
 
 
-    private boolean skipDocker = false;
+    private CommandLineRunnerMock runner = new CommandLineRunnerMock(false);
 
     public void skipDocker(boolean val) {
-        skipDocker = val;
+        runner = new CommandLineRunnerMock(val);
     }
 
     @Override
-    public CommandLineRunner getRunner() {
-        return new CommandLineRunnerMock(skipDocker);
+    public CommandLineRunnerMock getRunner() {
+        return runner;
+    }
+
+    /*
+        file based probes read from the fixture tree under src/test/resources/linux/host
+     */
+    public HostInfoCommandMockLinux() {
+        setHostRoot(resource("/linux/host"));
+    }
+
+    private static Path resource(String name) {
+        try {
+            return Paths.get(HostInfoCommandMockLinux.class.getResource(name).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -4,12 +4,13 @@
  */
 package com.intel.mtwilson.core.platform.info.mock;
 
-import com.intel.mtwilson.core.platform.info.CommandLineRunner;
 import com.intel.mtwilson.core.platform.info.HostInfoCommandWindows;
 
 public class HostInfoCommandMockWindows extends HostInfoCommandWindows {
+    private final CommandLineRunnerMock runner = new CommandLineRunnerMock(false);
+
     @Override
-    public CommandLineRunner getRunner() {
-        return new CommandLineRunnerMock(false);
+    public CommandLineRunnerMock getRunner() {
+        return runner;
     }
 }